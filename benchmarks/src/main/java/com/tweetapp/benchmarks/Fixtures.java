@@ -0,0 +1,147 @@
+package com.tweetapp.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ReflectionUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.kafka.TweetEventCodec;
+import com.tweetapp.util.JsonViewUtil;
+import com.tweetapp.util.JwtUtil;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * application objects wired by hand, the way spring would wire them, so the
+ * benchmarks measure the code and not the container
+ * 
+ * @author prateekpurohit
+ *
+ */
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	/**
+	 * method to set an @Autowired field
+	 * 
+	 * @param target
+	 * @param name
+	 * @param value
+	 */
+	static void inject(Object target, String name, Object value) {
+		Field field = ReflectionUtils.findField(target.getClass(), name);
+		ReflectionUtils.makeAccessible(field);
+		ReflectionUtils.setField(field, target, value);
+	}
+
+	/**
+	 * object mapper with spring boot's defaults (iso dates)
+	 * 
+	 * @return
+	 */
+	static ObjectMapper objectMapper() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+	}
+
+	static JsonViewUtil jsonViewUtil(ObjectMapper objectMapper) {
+		JsonViewUtil jsonViewUtil = new JsonViewUtil();
+		inject(jsonViewUtil, "objectMapper", objectMapper);
+		jsonViewUtil.initViews();
+		return jsonViewUtil;
+	}
+
+	/**
+	 * codec writing tweet-events in the given format, binary or json
+	 * 
+	 * @param jsonViewUtil
+	 * @param format
+	 * @return
+	 */
+	static TweetEventCodec tweetEventCodec(JsonViewUtil jsonViewUtil, String format) {
+		TweetsProperties tweetsProperties = new TweetsProperties();
+		tweetsProperties.getKafka().setEventFormat(format);
+
+		TweetEventCodec tweetEventCodec = new TweetEventCodec();
+		inject(tweetEventCodec, "jsonViewUtil", jsonViewUtil);
+		inject(tweetEventCodec, "tweetsProperties", tweetsProperties);
+		return tweetEventCodec;
+	}
+
+	static JwtUtil jwtUtil(long claimsCacheSize) {
+		TweetsProperties tweetsProperties = new TweetsProperties();
+		tweetsProperties.getJwt().setClaimsCacheSize(claimsCacheSize);
+
+		JwtUtil jwtUtil = new JwtUtil();
+		inject(jwtUtil, "tweetsProperties", tweetsProperties);
+		inject(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+		jwtUtil.initClaimsCache();
+		return jwtUtil;
+	}
+
+	/**
+	 * kafka producer config as spring boot builds it from application.properties
+	 * and, unless it is "default", the application-{profile}.properties on top
+	 * 
+	 * @param profile
+	 * @return
+	 * @throws IOException
+	 */
+	static Map<String, Object> producerProperties(String profile) throws IOException {
+		MutablePropertySources sources = new MutablePropertySources();
+		if (!"default".equals(profile)) {
+			sources.addLast(new ResourcePropertySource(new ClassPathResource("application-" + profile + ".properties")));
+		}
+		sources.addLast(new ResourcePropertySource(new ClassPathResource("application.properties")));
+
+		KafkaProperties kafkaProperties = new Binder(ConfigurationPropertySources.from(sources))
+				.bindOrCreate("spring.kafka", KafkaProperties.class);
+		return kafkaProperties.buildProducerProperties();
+	}
+
+	static UserDoc user() {
+		UserDoc user = new UserDoc();
+		user.setUsername("benchmarkUser");
+		user.setAvatarUrl("https://example.com/avatar.png");
+		return user;
+	}
+
+	static TweetDoc tweet(int i) {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId(new ObjectId().toHexString());
+		tweet.setHandle("user" + (i % 100));
+		tweet.setAvatarUrl("https://example.com/avatar" + (i % 100) + ".png");
+		tweet.setMessage("benchmark tweet number " + i + " with a message of a realistic length, #jmh #tweets");
+		tweet.setCreatedAt(new Date(1_660_000_000_000L + i * 1000L));
+		tweet.setLikesOnTweet((long) (i % 50));
+		tweet.setReplyCount((long) (i % 7));
+		return tweet;
+	}
+
+	static List<TweetDoc> tweets(int count) {
+		List<TweetDoc> tweets = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			tweets.add(tweet(i));
+		}
+		return tweets;
+	}
+}
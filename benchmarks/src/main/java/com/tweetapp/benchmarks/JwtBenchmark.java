@@ -0,0 +1,62 @@
+package com.tweetapp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.model.UserToken;
+import com.tweetapp.util.JwtUtil;
+
+/**
+ * token signing on login and token verification on every authenticated
+ * request, with the claims cache on (repeat requests) and off (first request
+ * of a token)
+ * 
+ * @author prateekpurohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+	@Param({ "10000", "0" })
+	public long claimsCacheSize;
+
+	private JwtUtil jwtUtil;
+
+	private UserDoc user;
+
+	private String authHeader;
+
+	@Setup
+	public void setup() {
+		jwtUtil = Fixtures.jwtUtil(claimsCacheSize);
+		user = Fixtures.user();
+		authHeader = "Bearer " + jwtUtil.createToken(user).getAuthToken();
+	}
+
+	@Benchmark
+	public UserToken createToken() {
+		return jwtUtil.createToken(user);
+	}
+
+	@Benchmark
+	public String extractUsername() {
+		return jwtUtil.extractUsername(authHeader);
+	}
+}
@@ -0,0 +1,107 @@
+package com.tweetapp.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.kafka.TweetEventCodec;
+
+/**
+ * tweet-events producer profiles against an embedded broker: events per second
+ * with sends pipelined the way the outbox relay sends them, and the latency of
+ * one event from send to acknowledgement. the producer config is bound from
+ * the application's own properties files
+ * 
+ * @author prateekpurohit
+ *
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProducerProfileBenchmark {
+
+	// constants
+	private static final int PARTITIONS = 6;
+
+	@Param({ "default", "producer-latency", "producer-throughput" })
+	public String profile;
+
+	private EmbeddedKafkaBroker broker;
+
+	private KafkaProducer<String, byte[]> producer;
+
+	private String key;
+
+	private byte[] value;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		broker = new EmbeddedKafkaBroker(1, false, PARTITIONS, TweetConstants.TWEET_EVENTS_TOPIC);
+		broker.afterPropertiesSet();
+
+		Map<String, Object> config = Fixtures.producerProperties(profile);
+		config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+		producer = new KafkaProducer<>(config);
+
+		TweetDoc tweet = Fixtures.tweet(1);
+		key = tweet.getHandle();
+		value = Fixtures.tweetEventCodec(Fixtures.jsonViewUtil(Fixtures.objectMapper()), TweetEventCodec.BINARY_FORMAT)
+				.encode(tweet);
+	}
+
+	/**
+	 * sends still in flight are not counted in the next iteration
+	 */
+	@TearDown(Level.Iteration)
+	public void flush() {
+		producer.flush();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		producer.close();
+		broker.destroy();
+	}
+
+	/**
+	 * sends are not waited for, the producer blocks once its buffer is full so
+	 * the rate settles at what the broker acknowledges
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public Future<RecordMetadata> publishThroughput() {
+		return producer.send(new ProducerRecord<>(TweetConstants.TWEET_EVENTS_TOPIC, key, value));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public RecordMetadata publishLatency() throws InterruptedException, ExecutionException {
+		return producer.send(new ProducerRecord<>(TweetConstants.TWEET_EVENTS_TOPIC, key, value)).get();
+	}
+}
@@ -0,0 +1,73 @@
+package com.tweetapp.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.util.JsonViewUtil;
+import com.tweetapp.util.TweetUtil;
+
+/**
+ * timeline responses: the filtered MappingJacksonValue written the way spring
+ * mvc's jackson converter writes it, against the streamed export writer
+ * 
+ * @author prateekpurohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimelineSerializationBenchmark {
+
+	@Param({ "10", "100", "10000" })
+	public int tweetCount;
+
+	private final OutputStream sink = OutputStream.nullOutputStream();
+
+	private ObjectMapper objectMapper;
+
+	private JsonViewUtil jsonViewUtil;
+
+	private TweetUtil tweetUtil;
+
+	private List<TweetDoc> tweets;
+
+	@Setup
+	public void setup() {
+		objectMapper = Fixtures.objectMapper();
+		jsonViewUtil = Fixtures.jsonViewUtil(objectMapper);
+		tweetUtil = new TweetUtil();
+		tweets = Fixtures.tweets(tweetCount);
+	}
+
+	@Benchmark
+	public MappingJacksonValue filterTweetData() throws IOException {
+		MappingJacksonValue mapping = tweetUtil.filterTweetData(tweets);
+		objectMapper.writer(mapping.getFilters()).writeValue(sink, mapping.getValue());
+		return mapping;
+	}
+
+	@Benchmark
+	public void writeTimelineStreamed() throws IOException {
+		jsonViewUtil.writeTimeline(tweets.iterator(), sink, 500);
+	}
+}
@@ -0,0 +1,76 @@
+package com.tweetapp.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.kafka.TweetEventCodec;
+
+/**
+ * tweet-events payloads in each format: the record value built by
+ * TweetEventProducer and parsed back by TweetEventsConsumer. the bytes per
+ * event are reported next to the build timings as the payloadBytes counter
+ * 
+ * @author prateekpurohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TweetEventBenchmark {
+
+	@Param({ TweetEventCodec.JSON_FORMAT, TweetEventCodec.BINARY_FORMAT })
+	public String format;
+
+	private TweetEventCodec tweetEventCodec;
+
+	private TweetDoc tweet;
+
+	private byte[] payload;
+
+	@Setup
+	public void setup() throws JsonProcessingException {
+		tweetEventCodec = Fixtures.tweetEventCodec(Fixtures.jsonViewUtil(Fixtures.objectMapper()), format);
+		tweet = Fixtures.tweet(1);
+		payload = tweetEventCodec.encode(tweet);
+	}
+
+	@Benchmark
+	public byte[] buildPayload(PayloadSize size) throws JsonProcessingException {
+		byte[] built = tweetEventCodec.encode(tweet);
+		size.payloadBytes = built.length;
+		return built;
+	}
+
+	@Benchmark
+	public TweetDoc readPayload() throws IOException {
+		return tweetEventCodec.decode(payload);
+	}
+
+	/**
+	 * size of one event, reported as is instead of per unit of time
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class PayloadSize {
+
+		public long payloadBytes;
+	}
+}
@@ -0,0 +1,65 @@
+package com.tweetapp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.tweetapp.util.TweetUtil;
+
+/**
+ * login and registration checks: the bcrypt password match of every login
+ * (same encoder as TweetsConfig) and the field lookup of a duplicate key error
+ * 
+ * @author prateekpurohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserValidationBenchmark {
+
+	// message of a DuplicateKeyException on the users collection
+	private static final String DUPE_MESSAGE = "Write operation error on server localhost:27017. Write error: "
+			+ "WriteError{code=11000, message='E11000 duplicate key error collection: tweetsApp.users index: "
+			+ "email dup key: { email: \"benchmark@example.com\" }', details={}}.";
+
+	private static final String PASSWORD = "benchmarkPassword1";
+
+	private PasswordEncoder passwordEncoder;
+
+	private String encodedPassword;
+
+	private TweetUtil tweetUtil;
+
+	@Setup
+	public void setup() {
+		passwordEncoder = new BCryptPasswordEncoder();
+		encodedPassword = passwordEncoder.encode(PASSWORD);
+		tweetUtil = new TweetUtil();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean passwordMatches() {
+		return passwordEncoder.matches(PASSWORD, encodedPassword);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public String extractDupeField() {
+		return tweetUtil.extractDupeFieldFromErrMsg(DUPE_MESSAGE);
+	}
+}
@@ -9,6 +9,7 @@ function AllTweets() {
   const [reply, setReply] = useState(true);
   const [isLoading, setIsLoading] = useState(true);
   const [tweets, setTweets] = useState([]);
+  const [replies, setReplies] = useState({});
 
   const config = {
     headers: { Authorization: localStorage.getItem("token") },
@@ -27,6 +28,66 @@ function AllTweets() {
     };
 
     getTweets();
+
+    // new tweets arrive as server-sent events, read with fetch because
+    // EventSource cannot send the Authorization header
+    const controller = new AbortController();
+    let retryTimer;
+    let backoff = 1000;
+
+    const streamTweets = async () => {
+      const res = await fetch("http://localhost:8080/tweets/stream", {
+        headers: config.headers,
+        signal: controller.signal,
+      });
+      if (!res.ok) throw new Error("stream failed with " + res.status);
+      backoff = 1000;
+
+      const reader = res.body.getReader();
+      const decoder = new TextDecoder();
+      let buffered = "";
+
+      while (true) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffered += decoder.decode(value, { stream: true });
+
+        const events = buffered.split("\n\n");
+        buffered = events.pop();
+        events.forEach((event) => {
+          const data = event
+            .split("\n")
+            .filter((line) => line.startsWith("data:"))
+            .map((line) => line.substring(5))
+            .join("\n");
+          if (data) {
+            const tweet = JSON.parse(data);
+            setTweets((current) => [tweet, ...current]);
+          }
+        });
+      }
+    };
+
+    // the server closes connections after a while and instances restart,
+    // reconnect with a growing delay and reload what was missed meanwhile
+    const connect = () => {
+      streamTweets()
+        .catch((error) => console.log(error))
+        .finally(() => {
+          if (controller.signal.aborted) return;
+          retryTimer = setTimeout(() => {
+            getTweets();
+            connect();
+          }, backoff);
+          backoff = Math.min(backoff * 2, 30000);
+        });
+    };
+
+    connect();
+    return () => {
+      controller.abort();
+      clearTimeout(retryTimer);
+    };
   }, []);
 
   const tweetReplyHandler = (id) => {
@@ -71,6 +132,11 @@ function AllTweets() {
     const repliesButton = document.getElementById(id + "showReplies");
 
     if (showReplies === true) {
+      // replies are fetched on demand, the tweet only carries their count
+      axios
+        .get("http://localhost:8080/tweets/" + id + "/replies", config)
+        .then((res) => setReplies({ ...replies, [id]: res.data }))
+        .catch((err) => console.log(err));
       repliesBox.classList.remove("collapse-close");
       repliesBox.classList.add("collapse-open");
       repliesButton.innerText = "hide replies";
@@ -121,8 +187,8 @@ function AllTweets() {
                           id={tweet.id}
                         >
                           <div class="collapse-content">
-                            {tweet.replies != null &&
-                              tweet.replies.map((reply) => {
+                            {replies[tweet.id] != null &&
+                              replies[tweet.id].map((reply) => {
                                 return (
                                   <div className="w-full px-5 py-2 grid grid-cols-12">
                                     <div className="col-span-2">
@@ -0,0 +1,247 @@
+package com.tweetapp.bulk;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.InsertManyOptions;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.document.UserDoc;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * command line export / import of the tweets and users collections as gzipped
+ * newline delimited json, one document per line in mongo extended json so ids,
+ * dates and number types survive the round trip. run it with
+ * 
+ * <pre>
+ * java -jar tweets.jar --spring.main.web-application-type=none
+ *     --spring.kafka.listener.auto-startup=false
+ *     --tweets.bulk.mode=export|import --tweets.bulk.dir=/backup
+ * </pre>
+ * 
+ * the application exits once the run is done
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class NdjsonBulkRunner implements ApplicationRunner {
+
+	// constants
+	private static final String EXPORT = "export";
+	private static final String IMPORT = "import";
+	private static final String FILE_SUFFIX = ".ndjson.gz";
+	private static final int IO_BUFFER = 1 << 16;
+	private static final int DUPLICATE_KEY = 11000;
+
+	private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder()
+			.outputMode(JsonMode.EXTENDED).build();
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private ConfigurableApplicationContext context;
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+
+		String mode = tweetsProperties.getBulk().getMode();
+
+		if (!EXPORT.equals(mode) && !IMPORT.equals(mode)) {
+			return;
+		}
+
+		Path dir = Paths.get(tweetsProperties.getBulk().getDir());
+		Files.createDirectories(dir);
+
+		for (String collection : Arrays.asList(mongoTemplate.getCollectionName(UserDoc.class),
+				mongoTemplate.getCollectionName(TweetDoc.class))) {
+
+			Path file = dir.resolve(collection + FILE_SUFFIX);
+
+			if (EXPORT.equals(mode)) {
+				try (OutputStream out = Files.newOutputStream(file)) {
+					exportCollection(mongoTemplate.getCollection(collection), out);
+				}
+			} else if (Files.exists(file)) {
+				try (InputStream in = Files.newInputStream(file)) {
+					importCollection(mongoTemplate.getCollection(collection), in);
+				}
+			} else {
+				log.warn("nothing to import into {}, {} does not exist", collection, file);
+			}
+		}
+
+		System.exit(SpringApplication.exit(context));
+	}
+
+	/**
+	 * method to write every document of a collection to the gzipped stream, read
+	 * over one cursor in batches
+	 * 
+	 * @param collection
+	 * @param out
+	 * @return number of documents written
+	 * @throws IOException
+	 */
+	public long exportCollection(MongoCollection<Document> collection, OutputStream out) throws IOException {
+
+		Throughput throughput = new Throughput("exported", collection.getNamespace().getCollectionName());
+
+		try (MongoCursor<Document> cursor = collection.find().batchSize(tweetsProperties.getBulk().getBatchSize())
+				.iterator();
+				Writer writer = new BufferedWriter(
+						new OutputStreamWriter(new GZIPOutputStream(out, IO_BUFFER), StandardCharsets.UTF_8),
+						IO_BUFFER)) {
+
+			while (cursor.hasNext()) {
+				writer.write(cursor.next().toJson(EXTENDED_JSON));
+				writer.write('\n');
+				throughput.add(1);
+			}
+		}
+
+		return throughput.done();
+	}
+
+	/**
+	 * method to insert the documents of a gzipped stream in unordered chunks,
+	 * documents already present (duplicate _id) are skipped
+	 * 
+	 * @param collection
+	 * @param in
+	 * @return number of documents inserted
+	 * @throws IOException
+	 */
+	public long importCollection(MongoCollection<Document> collection, InputStream in) throws IOException {
+
+		Throughput throughput = new Throughput("imported", collection.getNamespace().getCollectionName());
+		int batchSize = tweetsProperties.getBulk().getBatchSize();
+		List<Document> chunk = new ArrayList<>(batchSize);
+
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(in, IO_BUFFER), StandardCharsets.UTF_8);
+				BufferedReader lines = new BufferedReader(reader, IO_BUFFER)) {
+
+			String line;
+			while ((line = lines.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+
+				chunk.add(Document.parse(line));
+
+				if (chunk.size() == batchSize) {
+					throughput.add(insertChunk(collection, chunk));
+				}
+			}
+
+			if (!chunk.isEmpty()) {
+				throughput.add(insertChunk(collection, chunk));
+			}
+		}
+
+		return throughput.done();
+	}
+
+	/**
+	 * method to insert one chunk and clear it
+	 * 
+	 * @param collection
+	 * @param chunk
+	 * @return number of documents inserted
+	 */
+	private int insertChunk(MongoCollection<Document> collection, List<Document> chunk) {
+		int size = chunk.size();
+
+		try {
+			collection.insertMany(chunk, new InsertManyOptions().ordered(false));
+			return size;
+		} catch (MongoBulkWriteException e) {
+
+			// anything but duplicates is a real failure
+			if (e.getWriteErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+				throw e;
+			}
+
+			return e.getWriteResult().getInsertedCount();
+		} finally {
+			chunk.clear();
+		}
+	}
+
+	/**
+	 * running document count of one collection, logged every reportEvery
+	 * documents and once at the end
+	 */
+	private class Throughput {
+
+		private final String action;
+		private final String collection;
+		private final long start = System.nanoTime();
+		private long count;
+		private long nextReport = tweetsProperties.getBulk().getReportEvery();
+
+		Throughput(String action, String collection) {
+			this.action = action;
+			this.collection = collection;
+		}
+
+		void add(long documents) {
+			count += documents;
+
+			if (count >= nextReport) {
+				report();
+				nextReport += tweetsProperties.getBulk().getReportEvery();
+			}
+		}
+
+		long done() {
+			report();
+			return count;
+		}
+
+		private void report() {
+			long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			log.info("{} {} documents of {} in {} ms, {} docs/s", action, count, collection, millis,
+					count * 1000 / millis);
+		}
+	}
+}
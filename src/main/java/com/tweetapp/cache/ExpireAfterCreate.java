@@ -0,0 +1,34 @@
+package com.tweetapp.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * caffeine expiry counting from when an entry was created only. replacing an
+ * entry, to update it or to weigh it again, does not extend its life
+ *
+ * @author prateekpurohit
+ *
+ */
+class ExpireAfterCreate<K, V> implements Expiry<K, V> {
+
+	private final long ttlNanos;
+
+	ExpireAfterCreate(long ttlNanos) {
+		this.ttlNanos = ttlNanos;
+	}
+
+	@Override
+	public long expireAfterCreate(K key, V value, long currentTime) {
+		return ttlNanos;
+	}
+
+	@Override
+	public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+		return currentDuration;
+	}
+
+	@Override
+	public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+		return currentDuration;
+	}
+}
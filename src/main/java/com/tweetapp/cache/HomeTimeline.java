@@ -0,0 +1,214 @@
+package com.tweetapp.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.tweetapp.model.TimelineCursor;
+
+/**
+ * bounded home timeline of one user, a ring buffer of tweet references kept in
+ * (createdAt, id) order. the buffer grows with the timeline up to its capacity,
+ * once full every new tweet overwrites the oldest one. tweets mostly arrive in
+ * order so an insert is usually a plain append. it is guarded by a lock rather
+ * than a monitor so virtual threads are never pinned
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class HomeTimeline {
+
+	// oldest first order of the references
+	public static final Comparator<TimelineCursor> ORDER = Comparator.comparing(TimelineCursor::getCreatedAt)
+			.thenComparing(TimelineCursor::getId);
+
+	// slots allocated up front, a timeline of a user following few accounts stays small
+	private static final int INITIAL_SLOTS = 16;
+
+	private final int capacity;
+
+	private TimelineCursor[] entries;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// users whose tweets are merged on read instead of being pushed here
+	private final Set<String> heavyFollowees;
+
+	// index of the oldest reference
+	private int head;
+
+	private int size;
+
+	// older tweets were dropped, the buffer does not hold the whole history
+	private boolean truncated;
+
+	public HomeTimeline(int capacity, Set<String> heavyFollowees) {
+		this.capacity = capacity;
+		this.entries = new TimelineCursor[Math.min(capacity, INITIAL_SLOTS)];
+		this.heavyFollowees = heavyFollowees;
+	}
+
+	/**
+	 * method to add a tweet reference in order, duplicates are ignored
+	 * 
+	 * @param ref
+	 */
+	public void add(TimelineCursor ref) {
+		lock.lock();
+		try {
+			insert(ref);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method to get up to limit references strictly older than the cursor, newest
+	 * first
+	 * 
+	 * @param before null for the newest references
+	 * @param limit
+	 * @return
+	 */
+	public List<TimelineCursor> page(TimelineCursor before, int limit) {
+		lock.lock();
+		try {
+			int end = before == null ? size : lowerBound(before);
+
+			List<TimelineCursor> page = new ArrayList<>(Math.min(limit, end));
+			for (int i = end - 1; i >= 0 && page.size() < limit; i--) {
+				page.add(get(i));
+			}
+
+			return page;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method to flag that the user has older tweets than the ones buffered
+	 */
+	public void markTruncated() {
+		lock.lock();
+		try {
+			truncated = true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean isTruncated() {
+		lock.lock();
+		try {
+			return truncated;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method to get the number of references the buffer has room for, what the
+	 * timeline weighs in the cache
+	 * 
+	 * @return
+	 */
+	public int slots() {
+		lock.lock();
+		try {
+			return entries.length;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public Set<String> getHeavyFollowees() {
+		return Collections.unmodifiableSet(heavyFollowees);
+	}
+
+	private void insert(TimelineCursor ref) {
+
+		// older than everything kept in a full buffer
+		if (size == capacity && ORDER.compare(ref, get(0)) < 0) {
+			truncated = true;
+			return;
+		}
+
+		// find the slot from the newest end, usually the very end
+		int pos = size;
+		while (pos > 0 && ORDER.compare(get(pos - 1), ref) > 0) {
+			pos--;
+		}
+
+		if (pos > 0 && ORDER.compare(get(pos - 1), ref) == 0) {
+			return;
+		}
+
+		if (size == entries.length && size < capacity) {
+			grow();
+		}
+
+		// drop the oldest reference to make room
+		if (size == capacity) {
+			head = (head + 1) % entries.length;
+			size--;
+			pos--;
+			truncated = true;
+		}
+
+		for (int i = size; i > pos; i--) {
+			set(i, get(i - 1));
+		}
+		set(pos, ref);
+		size++;
+	}
+
+	/**
+	 * doubles the buffer up to the capacity, the oldest reference moves to slot 0
+	 */
+	private void grow() {
+		TimelineCursor[] grown = new TimelineCursor[Math.min(capacity, entries.length * 2)];
+		for (int i = 0; i < size; i++) {
+			grown[i] = get(i);
+		}
+		entries = grown;
+		head = 0;
+	}
+
+	/**
+	 * number of references ordered before the cursor
+	 */
+	private int lowerBound(TimelineCursor cursor) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (ORDER.compare(get(mid), cursor) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private TimelineCursor get(int i) {
+		return entries[(head + i) % entries.length];
+	}
+
+	private void set(int i, TimelineCursor ref) {
+		entries[(head + i) % entries.length] = ref;
+	}
+}
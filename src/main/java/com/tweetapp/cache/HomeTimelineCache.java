@@ -0,0 +1,161 @@
+package com.tweetapp.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.model.TimelineCursor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * precomputed home timelines of the users who read them recently. new tweets
+ * are pushed only into timelines already in the cache or being seeded, a cold
+ * timeline is seeded from mongo on its first read. the cache is bounded by the
+ * references the timelines have room for rather than by their number, a
+ * timeline weighs what its buffer holds. entries expire a while after they were
+ * seeded so follow counts which crossed the heavy threshold are picked up
+ * again.
+ * <p>
+ * known limitation: the cache is local to each instance and tweets are pushed
+ * only by the instance whose TweetEventsConsumer persisted them. a timeline
+ * cached on another instance misses those tweets until it expires and is
+ * seeded again, so with several instances a home timeline can lag by up to
+ * tweets.home.timeline-ttl-minutes. tweets of heavy accounts are merged on read
+ * and are not affected. lower the ttl, or route a user's reads to one instance,
+ * where that lag matters
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Component
+public class HomeTimelineCache {
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Cache<String, HomeTimeline> timelines;
+
+	// timelines whose seed query is running, tweets pushed meanwhile go into them
+	private final Map<String, HomeTimeline> seeding = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void initTimelines() {
+		TweetsProperties.Home home = tweetsProperties.getHome();
+		timelines = Caffeine.newBuilder().maximumWeight(home.getMaxReferences())
+				.weigher((String username, HomeTimeline timeline) -> timeline.slots())
+				.expireAfter(new ExpireAfterCreate<>(TimeUnit.MINUTES.toNanos(home.getTimelineTtlMinutes())))
+				.recordStats().build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, timelines, "homeTimelines");
+	}
+
+	/**
+	 * method to get the timeline of a user if it is cached
+	 * 
+	 * @param username
+	 * @return
+	 */
+	public HomeTimeline get(String username) {
+		return timelines.getIfPresent(username);
+	}
+
+	/**
+	 * method to get the timeline of a user, seeding it on a miss. concurrent
+	 * reads of a cold timeline wait for one seed, and the seeder registers its
+	 * timeline with startSeeding before querying so no tweet pushed meanwhile
+	 * is lost
+	 * 
+	 * @param username
+	 * @param seeder
+	 * @return
+	 */
+	public HomeTimeline get(String username, Function<String, HomeTimeline> seeder) {
+		HomeTimeline timeline = timelines.get(username, key -> {
+			try {
+				return seeder.apply(key);
+			} catch (RuntimeException e) {
+				seeding.remove(key);
+				throw e;
+			}
+		});
+
+		// the seeded timeline is in the cache now, pushes find it there
+		seeding.remove(username, timeline);
+
+		return timeline;
+	}
+
+	/**
+	 * method to let pushes reach a timeline before its seed query runs
+	 * 
+	 * @param username
+	 * @param timeline
+	 */
+	public void startSeeding(String username, HomeTimeline timeline) {
+		seeding.put(username, timeline);
+	}
+
+	/**
+	 * method to drop the timeline of a user, it is seeded again on the next read
+	 * 
+	 * @param username
+	 */
+	public void invalidate(String username) {
+		timelines.invalidate(username);
+	}
+
+	public long size() {
+		return timelines.estimatedSize();
+	}
+
+	/**
+	 * method to run pending evictions now instead of on later cache accesses
+	 */
+	public void cleanUp() {
+		timelines.cleanUp();
+	}
+
+	/**
+	 * method to push a tweet into the cached timelines of the given followers,
+	 * on this instance only
+	 * 
+	 * @param followers
+	 * @param ref
+	 */
+	public void push(Collection<String> followers, TimelineCursor ref) {
+		for (String follower : followers) {
+
+			// seeding first, a seeded timeline is cached before it leaves seeding
+			HomeTimeline timeline = seeding.get(follower);
+			if (timeline == null) {
+				timeline = timelines.getIfPresent(follower);
+			}
+			if (timeline == null) {
+				continue;
+			}
+
+			int slots = timeline.slots();
+			timeline.add(ref);
+
+			// weigh a grown timeline again, keeping its expiry
+			if (timeline.slots() != slots) {
+				timelines.asMap().replace(follower, timeline, timeline);
+			}
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package com.tweetapp.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.repository.ITweetRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * in-memory buffer which coalesces likes per tweet and writes them to mongo as
+ * one unordered bulk of $inc operations on the flush interval, or sooner on
+ * its own flush thread once enough tweets are pending. it holds at most the
+ * configured number of tweets, likes on further tweets are turned away so the
+ * caller writes them through, and it never flushes on the caller's thread. the
+ * timeline versions of the liked tweets' authors are bumped once their likes
+ * are written.
+ * <p>
+ * each tweet counts its likes in a LongAdder, so likes on a hot tweet do not
+ * contend on one counter. a flush retires the adders, taking them out of the
+ * buffer and draining them with sumThenReset; a retired adder is drained once
+ * more on the next flush, which picks up a like that raced with its retirement
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class LikeWriteBehindBuffer {
+
+	@Autowired
+	private ITweetRepository tweetRepository;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private TimelineVersions timelineVersions;
+
+	private final ConcurrentHashMap<String, PendingLikes> pending = new ConcurrentHashMap<>();
+
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	// entries retired by the last flush, only touched under the flush lock
+	private List<Map.Entry<String, PendingLikes>> retired = new ArrayList<>();
+
+	private Executor flushExecutor;
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	// authors whose likes were written but whose timeline versions could not be
+	// bumped yet, only touched under the flush lock
+	private final Set<String> unbumped = new HashSet<>();
+
+	private Counter flushedLikes;
+
+	private Counter failedFlushes;
+
+	private Counter droppedLikes;
+
+	@PostConstruct
+	public void registerMetrics() {
+		Gauge.builder("tweets.likes.pending.tweets", pending, Map::size)
+				.description("tweets with likes waiting to be flushed").register(meterRegistry);
+		Gauge.builder("tweets.likes.pending.deltas", this, LikeWriteBehindBuffer::getPendingLikes)
+				.description("likes waiting to be flushed").register(meterRegistry);
+		flushedLikes = Counter.builder("tweets.likes.flushed").description("likes written to mongo")
+				.register(meterRegistry);
+		failedFlushes = Counter.builder("tweets.likes.flush.failures").description("failed bulk writes")
+				.register(meterRegistry);
+		droppedLikes = Counter.builder("tweets.likes.dropped")
+				.description("likes of a failed flush which did not fit back into the buffer").register(meterRegistry);
+	}
+
+	/**
+	 * single thread for the early flushes, a request which finds one already
+	 * queued is discarded as that flush picks its likes up anyway
+	 */
+	@PostConstruct
+	public void startFlusher() {
+		ThreadPoolExecutor flusher = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+				new CustomizableThreadFactory("likes-flush-"), new ThreadPoolExecutor.DiscardPolicy());
+		flusher.allowCoreThreadTimeOut(true);
+		flushExecutor = flusher;
+	}
+
+	/**
+	 * method to record one like on a tweet
+	 * 
+	 * @param id
+	 * @param handle author of the tweet
+	 * @return false when the buffer is full and the like was not taken, the
+	 *         caller has to write it to the database itself
+	 */
+	public boolean add(String id, String handle) {
+
+		if (!pending.containsKey(id) && isFull()) {
+			return false;
+		}
+
+		pending.computeIfAbsent(id, key -> new PendingLikes(handle)).increment();
+
+		// hand one early flush to the flush thread, the caller never waits for it
+		if (pending.size() >= tweetsProperties.getLikes().getFlushAtPendingTweets() && !flushRequested.get()
+				&& flushRequested.compareAndSet(false, true)) {
+			flushExecutor.execute(() -> {
+				flushRequested.set(false);
+				flush();
+			});
+		}
+		return true;
+	}
+
+	/**
+	 * method to write all pending likes to the database
+	 */
+	@Scheduled(fixedDelayString = "${tweets.likes.flush-interval-ms:500}")
+	public void flush() {
+		flushLock.lock();
+		try {
+			Map<String, String> authors = new HashMap<>();
+			Map<String, Long> deltas = drain(authors);
+
+			if (!deltas.isEmpty()) {
+				try {
+					tweetRepository.bulkIncrementLikes(deltas);
+					flushedLikes.increment(deltas.values().stream().mapToLong(Long::longValue).sum());
+					unbumped.addAll(authors.values());
+				} catch (RuntimeException e) {
+					log.error("flushing likes for {} tweets failed, keeping them for the next flush", deltas.size(), e);
+					failedFlushes.increment();
+					keep(deltas, authors);
+				}
+			}
+
+			bumpVersions();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@PreDestroy
+	public void flushOnShutdown() {
+		if (flushExecutor instanceof ExecutorService) {
+			((ExecutorService) flushExecutor).shutdown();
+		}
+		flush();
+	}
+
+	/**
+	 * method to get the number of likes not yet written to the database
+	 * 
+	 * @return
+	 */
+	public long getPendingLikes() {
+		return pending.values().stream().mapToLong(PendingLikes::sum).sum();
+	}
+
+	/**
+	 * method to bump the timeline versions of the authors whose likes were
+	 * written, kept for the next flush when it fails
+	 */
+	private void bumpVersions() {
+		if (unbumped.isEmpty()) {
+			return;
+		}
+
+		try {
+			timelineVersions.bumpAll(Set.copyOf(unbumped));
+			unbumped.clear();
+		} catch (RuntimeException e) {
+			log.error("bumping the timeline versions of {} users failed, retrying on the next flush",
+					unbumped.size(), e);
+		}
+	}
+
+	private boolean isFull() {
+		return pending.size() >= tweetsProperties.getLikes().getMaxPendingTweets();
+	}
+
+	/**
+	 * method to put the likes of a failed flush back, as far as they fit. the
+	 * buffer stays bounded while mongo is down
+	 * 
+	 * @param deltas
+	 * @param authors
+	 */
+	private void keep(Map<String, Long> deltas, Map<String, String> authors) {
+		long dropped = 0;
+
+		for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+			if (pending.containsKey(entry.getKey()) || !isFull()) {
+				addDelta(entry.getKey(), authors.get(entry.getKey()), entry.getValue());
+			} else {
+				dropped += entry.getValue();
+			}
+		}
+
+		if (dropped > 0) {
+			log.error("dropping {} likes which no longer fit into the buffer", dropped);
+			droppedLikes.increment(dropped);
+		}
+	}
+
+	private void addDelta(String id, String handle, long delta) {
+		pending.computeIfAbsent(id, key -> new PendingLikes(handle)).add(delta);
+	}
+
+	/**
+	 * method to take the pending likes out of the buffer, called under the flush
+	 * lock
+	 * 
+	 * @param authors filled with the author of each drained tweet
+	 * @return likes per tweet
+	 */
+	private Map<String, Long> drain(Map<String, String> authors) {
+		Map<String, Long> deltas = new HashMap<>();
+
+		// likes which reached an entry while the last flush retired it
+		for (Map.Entry<String, PendingLikes> entry : retired) {
+			collect(entry, entry.getValue().sumThenReset(), deltas, authors);
+		}
+
+		List<Map.Entry<String, PendingLikes>> retiring = new ArrayList<>();
+		for (Map.Entry<String, PendingLikes> entry : pending.entrySet()) {
+			if (pending.remove(entry.getKey(), entry.getValue())) {
+				collect(entry, entry.getValue().sumThenReset(), deltas, authors);
+				retiring.add(Map.entry(entry.getKey(), entry.getValue()));
+			}
+		}
+		retired = retiring;
+
+		return deltas;
+	}
+
+	private static void collect(Map.Entry<String, PendingLikes> entry, long delta, Map<String, Long> deltas,
+			Map<String, String> authors) {
+		if (delta > 0) {
+			deltas.merge(entry.getKey(), delta, Long::sum);
+			authors.put(entry.getKey(), entry.getValue().handle);
+		}
+	}
+
+	/**
+	 * like counter of one tweet, striped so concurrent likes do not contend
+	 */
+	private static class PendingLikes extends LongAdder {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String handle;
+
+		PendingLikes(String handle) {
+			this.handle = handle;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.tweetapp.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.tweetapp.document.TimelineVersionDoc;
+import com.tweetapp.repository.ITimelineVersionRepository;
+
+/**
+ * version counters of the global timeline and of the timeline of each user,
+ * turned into strong etags. they live in mongo so every instance answers with
+ * the same etag, and reading one is a single _id lookup, so a matching etag is
+ * answered with 304 before the page query runs.
+ * 
+ * writers bump the versions after their write, never before, so a version is
+ * never seen together with content older than it
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Component
+public class TimelineVersions {
+
+	// constants
+	static final String ALL = "all";
+	static final String USER = "user:";
+
+	@Autowired
+	private ITimelineVersionRepository timelineVersionRepository;
+
+	/**
+	 * method to record a change to the tweets of a user, which also changes the
+	 * global timeline
+	 * 
+	 * @param handle
+	 */
+	public void bump(String handle) {
+		bumpAll(handle == null ? Set.of() : Set.of(handle));
+	}
+
+	/**
+	 * method to record changes to the tweets of several users with one write
+	 * 
+	 * @param handles
+	 */
+	public void bumpAll(Collection<String> handles) {
+		Set<String> ids = new LinkedHashSet<>();
+		ids.add(ALL);
+		handles.stream().filter(Objects::nonNull).forEach(handle -> ids.add(USER + handle));
+
+		timelineVersionRepository.bump(ids);
+	}
+
+	/**
+	 * method to get the etag of the global timeline
+	 * 
+	 * @return
+	 */
+	public String timelineEtag() {
+		return etag(ALL);
+	}
+
+	/**
+	 * method to get the etag of the timeline of a user
+	 * 
+	 * @param handle
+	 * @return
+	 */
+	public String userEtag(String handle) {
+		return etag(USER + handle);
+	}
+
+	private String etag(String id) {
+		long version = timelineVersionRepository.findById(id).map(TimelineVersionDoc::getVersion).orElse(0L);
+
+		return "\"" + Long.toString(version, 36) + "\"";
+	}
+}
@@ -0,0 +1,154 @@
+package com.tweetapp.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.repository.ITweetRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * read-through cache of the most requested tweets. caffeine evicts with
+ * W-TinyLFU once the approximate size of the cached tweets reaches the byte
+ * budget; every tweet weighs at least budget / max entries, which also caps the
+ * number of entries. hits, misses and evictions are exported as the cache.*
+ * metrics tagged cache=tweets. entries expire the configured ttl after they
+ * were loaded, which bounds how long an edit or delete made on another
+ * instance goes unseen here
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Component
+public class TweetCache {
+
+	// object headers, references, dates and counters of a tweet
+	private static final int TWEET_OVERHEAD_BYTES = 200;
+
+	@Autowired
+	private ITweetRepository tweetRepository;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Cache<String, TweetDoc> tweets;
+
+	@PostConstruct
+	public void initTweets() {
+		TweetsProperties.Cache cache = tweetsProperties.getCache();
+		int minWeight = (int) Math.max(1, cache.getMaxBytes() / cache.getMaxEntries());
+
+		tweets = Caffeine.newBuilder().maximumWeight(cache.getMaxBytes())
+				.weigher((String id, TweetDoc tweet) -> Math.max(minWeight, approximateBytes(tweet)))
+				.expireAfter(new ExpireAfterCreate<>(TimeUnit.SECONDS.toNanos(cache.getTtlSeconds()))).recordStats().build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, tweets, "tweets");
+	}
+
+	/**
+	 * method to get a tweet, loading it from mongo on a miss. missing tweets are
+	 * not cached
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public Optional<TweetDoc> findById(String id) {
+		return Optional.ofNullable(tweets.get(id, key -> tweetRepository.findById(key).orElse(null)));
+	}
+
+	/**
+	 * method to get several tweets, the misses are loaded with one query
+	 * 
+	 * @param ids
+	 * @return tweets by id, missing tweets are left out
+	 */
+	public Map<String, TweetDoc> findAllById(Collection<String> ids) {
+		return tweets.getAll(ids, missing -> {
+			Map<String, TweetDoc> loaded = new HashMap<>();
+			tweetRepository.findAllById(new ArrayList<String>(missing))
+					.forEach(tweet -> loaded.put(tweet.getId(), tweet));
+			return loaded;
+		});
+	}
+
+	/**
+	 * method to add likes to the cached copy of a tweet, if it is cached, so a
+	 * like does not evict a hot tweet. the entry is replaced by a copy, tweets
+	 * already handed out never change under their readers
+	 * 
+	 * @param id
+	 * @param delta
+	 */
+	public void applyLikes(String id, long delta) {
+		tweets.asMap().computeIfPresent(id, (key, tweet) -> withLikes(tweet,
+				(tweet.getLikesOnTweet() == null ? 0 : tweet.getLikesOnTweet()) + delta));
+	}
+
+	public void invalidate(String id) {
+		tweets.invalidate(id);
+	}
+
+	public long size() {
+		return tweets.estimatedSize();
+	}
+
+	/**
+	 * method to run pending evictions now instead of on later cache accesses
+	 */
+	public void cleanUp() {
+		tweets.cleanUp();
+	}
+
+	/**
+	 * copy of a tweet with other likes, the @NonNull fields are only set when
+	 * present
+	 */
+	private static TweetDoc withLikes(TweetDoc tweet, long likes) {
+		TweetDoc copy = new TweetDoc();
+		copy.setId(tweet.getId());
+		if (tweet.getMessage() != null) {
+			copy.setMessage(tweet.getMessage());
+		}
+		if (tweet.getCreatedAt() != null) {
+			copy.setCreatedAt(tweet.getCreatedAt());
+		}
+		if (tweet.getHandle() != null) {
+			copy.setHandle(tweet.getHandle());
+		}
+		copy.setAvatarUrl(tweet.getAvatarUrl());
+		copy.setLikesOnTweet(likes);
+		copy.setReply(tweet.isReply());
+		copy.setParentId(tweet.getParentId());
+		copy.setReplyCount(tweet.getReplyCount());
+		return copy;
+	}
+
+	/**
+	 * approximate heap size of a tweet, strings count two bytes per char
+	 */
+	private static int approximateBytes(TweetDoc tweet) {
+		return TWEET_OVERHEAD_BYTES + 2 * (length(tweet.getId()) + length(tweet.getMessage())
+				+ length(tweet.getHandle()) + length(tweet.getAvatarUrl()) + length(tweet.getParentId()));
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+}
@@ -0,0 +1,93 @@
+package com.tweetapp.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.repository.IUserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * read-through cache of user profiles by username, used for the avatar copied
+ * onto every new tweet and the follow counts deciding the fan-out. the
+ * password is never loaded into it, logins read it from mongo so a changed
+ * password is never checked against a stale copy. entries expire after the
+ * configured ttl and are dropped explicitly by every write to a user on this
+ * instance. hits and misses are exported as the cache.* metrics tagged
+ * cache=users
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Component
+public class UserProfileCache {
+
+	@Autowired
+	private IUserRepository userRepository;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Cache<String, UserDoc> users;
+
+	@PostConstruct
+	public void initUsers() {
+		TweetsProperties.Users settings = tweetsProperties.getUsers();
+
+		users = Caffeine.newBuilder().maximumSize(settings.getCacheSize())
+				.expireAfterWrite(settings.getTtlSeconds(), TimeUnit.SECONDS).recordStats().build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+	}
+
+	/**
+	 * method to get a user, loading it from mongo on a miss. unknown usernames
+	 * are not cached so a user registered right after is found
+	 * 
+	 * @param username
+	 * @return the user, null if it does not exist
+	 */
+	public UserDoc get(String username) {
+		return username == null ? null : users.get(username, userRepository::findProfileByUsername);
+	}
+
+	/**
+	 * method to get several users, the misses are loaded with one query
+	 * 
+	 * @param usernames
+	 * @return users by username, unknown usernames are left out
+	 */
+	public Map<String, UserDoc> getAll(Collection<String> usernames) {
+		List<String> known = usernames.stream().filter(Objects::nonNull).collect(Collectors.toList());
+
+		return users.getAll(known, missing -> {
+			Map<String, UserDoc> loaded = new HashMap<>();
+			userRepository.findProfilesByUsernameIn(new ArrayList<String>(missing))
+					.forEach(user -> loaded.put(user.getUsername(), user));
+			return loaded;
+		});
+	}
+
+	public void invalidate(String username) {
+		users.invalidate(username);
+	}
+}
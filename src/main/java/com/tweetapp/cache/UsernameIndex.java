@@ -0,0 +1,108 @@
+package com.tweetapp.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.repository.IUserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * in-memory sorted index of usernames for typeahead suggestions. a prefix
+ * lookup is a range view of the skip list, so it costs log(n) plus the
+ * results. the index is loaded once on startup and updated on registration,
+ * users registered through another instance show up after a restart
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+
+	// separates the lower cased username from the original one in the keys
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	@Autowired
+	private IUserRepository userRepository;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	// lower cased username + separator + username -> user names
+	private final ConcurrentSkipListMap<String, UserDoc> users = new ConcurrentSkipListMap<>();
+
+	@PostConstruct
+	public void load() {
+
+		if (!tweetsProperties.getSearch().isInMemoryIndex()) {
+			return;
+		}
+
+		userRepository.findAllNames().forEach(this::add);
+		log.info("loaded {} usernames in the search index", users.size());
+	}
+
+	/**
+	 * method to add a user to the index, only the fields shown in search results
+	 * are kept. names missing on legacy users are left unset, the setters of the
+	 * @NonNull fields reject nulls
+	 * 
+	 * @param user
+	 */
+	public void add(UserDoc user) {
+		UserDoc names = new UserDoc();
+		names.setUsername(user.getUsername());
+		if (user.getFirstName() != null) {
+			names.setFirstName(user.getFirstName());
+		}
+		if (user.getLastName() != null) {
+			names.setLastName(user.getLastName());
+		}
+
+		users.put(user.getUsername().toLowerCase(Locale.ROOT) + KEY_SEPARATOR + user.getUsername(), names);
+	}
+
+	/**
+	 * method to get the users whose username starts with the prefix, ignoring
+	 * case, in username order
+	 * 
+	 * @param prefix
+	 * @param limit
+	 * @return
+	 */
+	public List<UserDoc> search(String prefix, int limit) {
+		String from = prefix.toLowerCase(Locale.ROOT);
+
+		NavigableMap<String, UserDoc> matches = users.subMap(from, true, from + Character.MAX_VALUE, false);
+
+		List<UserDoc> result = new ArrayList<>();
+		for (UserDoc user : matches.values()) {
+			if (result.size() == limit) {
+				break;
+			}
+			result.add(user);
+		}
+
+		return result;
+	}
+
+	/**
+	 * method to get the number of indexed users
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return users.size();
+	}
+}
@@ -2,10 +2,13 @@ package com.tweetapp.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
+import com.tweetapp.constants.TweetConstants;
+
 
 /**
  * kafka configuration
@@ -15,8 +18,32 @@ import org.springframework.kafka.config.TopicBuilder;
 @Configuration
 public class AutoCreateConfig {
 
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	/**
+	 * tweet-events topic, kafka admin adds partitions to an existing topic when
+	 * the configured count grows (partitions can never be removed)
+	 * 
+	 * @return
+	 */
 	@Bean
 	public NewTopic tweetEvents() {
-		return TopicBuilder.name("tweet-events").partitions(1).replicas(1).build();
+		TweetsProperties.Kafka kafka = tweetsProperties.getKafka();
+		return TopicBuilder.name(TweetConstants.TWEET_EVENTS_TOPIC).partitions(kafka.getPartitions())
+				.replicas(kafka.getReplicas()).build();
+	}
+
+	/**
+	 * dead letter topic of tweet-events, a record is published to the partition
+	 * it was read from so it needs as many partitions
+	 * 
+	 * @return
+	 */
+	@Bean
+	public NewTopic tweetEventsDeadLetters() {
+		TweetsProperties.Kafka kafka = tweetsProperties.getKafka();
+		return TopicBuilder.name(TweetConstants.TWEET_EVENTS_DLT).partitions(kafka.getPartitions())
+				.replicas(kafka.getReplicas()).build();
 	}
 }
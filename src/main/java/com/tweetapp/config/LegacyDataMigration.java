@@ -0,0 +1,107 @@
+package com.tweetapp.config;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.DBRef;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.document.UserDoc;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * one-off migrations of data written before a layout change, each one enabled
+ * with its tweets.migration.* flag
+ *
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class LegacyDataMigration implements ApplicationRunner {
+
+	// constants
+	private static final String LEGACY_REPLIES = "replies";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Override
+	public void run(ApplicationArguments args) {
+
+		if (tweetsProperties.getMigration().isLegacyReplies()) {
+			migrateReplies();
+		}
+
+		if (tweetsProperties.getMigration().isLegacyUsernames()) {
+			migrateUsernames();
+		}
+	}
+
+	/**
+	 * method to move the old replies DBRef arrays to parentId / reply_cnt
+	 */
+	private void migrateReplies() {
+
+		Query legacy = Query.query(Criteria.where(LEGACY_REPLIES).exists(true));
+		legacy.fields().include(LEGACY_REPLIES);
+
+		String collection = mongoTemplate.getCollectionName(TweetDoc.class);
+		int migrated = 0;
+
+		for (Document tweet : mongoTemplate.find(legacy, Document.class, collection)) {
+			String parentId = tweet.getObjectId("_id").toHexString();
+			List<?> replies = tweet.get(LEGACY_REPLIES, List.class);
+
+			BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, TweetDoc.class);
+
+			if (replies != null) {
+				for (Object reply : replies) {
+					if (reply instanceof DBRef) {
+						operations.updateOne(Query.query(Criteria.where("_id").is(((DBRef) reply).getId())),
+								Update.update("parentId", parentId));
+					}
+				}
+			}
+
+			operations.updateOne(Query.query(Criteria.where("_id").is(tweet.getObjectId("_id"))),
+					new Update().set("reply_cnt", replies == null ? 0L : (long) replies.size()).unset(LEGACY_REPLIES));
+			operations.execute();
+
+			migrated++;
+		}
+
+		log.info("migrated replies of {} legacy tweets", migrated);
+	}
+
+	/**
+	 * method to fill usernameLower for users saved before it existed, done in
+	 * one server side update
+	 */
+	private void migrateUsernames() {
+
+		Query legacy = Query.query(Criteria.where("usernameLower").exists(false));
+		AggregationUpdate update = AggregationUpdate.update().set("usernameLower")
+				.toValue(StringOperators.valueOf("username").toLower());
+
+		long migrated = mongoTemplate.updateMulti(legacy, update, UserDoc.class).getModifiedCount();
+
+		log.info("migrated usernames of {} legacy users", migrated);
+	}
+}
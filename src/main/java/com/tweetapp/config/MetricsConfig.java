@@ -0,0 +1,42 @@
+package com.tweetapp.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.tweetapp.metrics.MongoCommandsPerRequest;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * metrics configuration, the meters are exposed on /actuator/prometheus of
+ * the management port.
+ * methods annotated with @Timed are recorded by the timed aspect, mongo
+ * commands and kafka clients are instrumented by the actuator auto
+ * configuration (mongodb.driver.*, kafka.*)
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+	/**
+	 * counts the mongo commands of each request, next to the driver command
+	 * timers registered by actuator
+	 * 
+	 * @param mongoCommandsPerRequest
+	 * @return
+	 */
+	@Bean
+	public MongoClientSettingsBuilderCustomizer mongoCommandsPerRequestCustomizer(
+			MongoCommandsPerRequest mongoCommandsPerRequest) {
+		return settings -> settings.addCommandListener(mongoCommandsPerRequest);
+	}
+}
@@ -1,7 +1,18 @@
 package com.tweetapp.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
 
 /**
  * kafka consumer configuration
@@ -12,4 +23,68 @@ import org.springframework.kafka.annotation.EnableKafka;
 @EnableKafka
 public class TweetEventsConsumerConfig {
 
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	/**
+	 * batch listener factory, each poll is handed to the listener as one list and
+	 * its offsets are committed only once the listener returns. a failing batch
+	 * is retried with backoff instead of being skipped, for at most the
+	 * configured time; the failed record is then published to tweet-events.DLT
+	 * and the partition moves on. each of the concurrent containers owns a share
+	 * of the topic's partitions
+	 * 
+	 * @param configurer
+	 * @param kafkaConsumerFactory
+	 * @param kafkaTemplate
+	 * @return
+	 */
+	@Bean
+	public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+			ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+			ConsumerFactory<Object, Object> kafkaConsumerFactory, KafkaOperations<String, byte[]> kafkaTemplate) {
+
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		configurer.configure(factory, kafkaConsumerFactory);
+
+		factory.setConcurrency(tweetsProperties.getKafka().getConcurrency());
+		factory.setBatchListener(true);
+		factory.getContainerProperties().setAckMode(AckMode.BATCH);
+		ExponentialBackOff backOff = new ExponentialBackOff();
+		backOff.setMaxElapsedTime(tweetsProperties.getKafka().getRetryMaxElapsedMs());
+		factory.setCommonErrorHandler(
+				new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate), backOff));
+
+		// each consumer blocks in poll and in the bulk insert, let it do so on a virtual thread
+		if (tweetsProperties.getThreads().isVirtual() && VirtualThreads.isSupported()) {
+			factory.getContainerProperties().setConsumerTaskExecutor(VirtualThreads.executor("tweet-events-vt-"));
+		}
+
+		return factory;
+	}
+
+	/**
+	 * batch listener factory of the live stream. its listener is assigned the
+	 * partitions itself and never acknowledges, so nothing is committed for it;
+	 * a failing batch is logged and skipped, the stream is best effort
+	 * 
+	 * @param configurer
+	 * @param kafkaConsumerFactory
+	 * @return
+	 */
+	@Bean
+	public ConcurrentKafkaListenerContainerFactory<Object, Object> tweetStreamContainerFactory(
+			ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+			ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		configurer.configure(factory, kafkaConsumerFactory);
+
+		factory.setConcurrency(1);
+		factory.setBatchListener(true);
+		factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+		factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0, 0)));
+
+		return factory;
+	}
 }
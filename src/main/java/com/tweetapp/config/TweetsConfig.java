@@ -1,7 +1,9 @@
 package com.tweetapp.config;
 
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -12,6 +14,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  *
  */
 @Configuration
+@EnableScheduling
 //@EnableSwagger2
 public class TweetsConfig {
 
@@ -20,4 +23,17 @@ public class TweetsConfig {
 		return new BCryptPasswordEncoder();
 	}
 
+	/**
+	 * sizes the connection pool of the mongo clients, the host and port stay in
+	 * spring.data.mongodb
+	 * 
+	 * @param tweetsProperties
+	 * @return
+	 */
+	@Bean
+	public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(TweetsProperties tweetsProperties) {
+		return settings -> settings.applyToConnectionPoolSettings(
+				pool -> pool.maxSize(tweetsProperties.getMongo().getMaxPoolSize()));
+	}
+
 }
@@ -0,0 +1,309 @@
+package com.tweetapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * tunable settings for the tweets application, bound from the "tweets" prefix
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "tweets")
+public class TweetsProperties {
+
+	private Timeline timeline = new Timeline();
+
+	private Likes likes = new Likes();
+
+	private Jwt jwt = new Jwt();
+
+	private Kafka kafka = new Kafka();
+
+	private Search search = new Search();
+
+	private Home home = new Home();
+
+	private Cache cache = new Cache();
+
+	private Users users = new Users();
+
+	private Migration migration = new Migration();
+
+	private Threads threads = new Threads();
+
+	private Stream stream = new Stream();
+
+	private Export export = new Export();
+
+	private Bulk bulk = new Bulk();
+
+	private Outbox outbox = new Outbox();
+
+	private Mongo mongo = new Mongo();
+
+	/**
+	 * paging limits for the timeline endpoints
+	 */
+	@Data
+	public static class Timeline {
+
+		// page size used when the client does not pass a limit
+		private int defaultPageSize = 50;
+
+		// upper bound for the limit a client can ask for
+		private int maxPageSize = 200;
+
+		/**
+		 * method to clamp the page size requested by the client
+		 * 
+		 * @param limit
+		 * @return
+		 */
+		public int resolvePageSize(Integer limit) {
+
+			if (limit == null) {
+				return defaultPageSize;
+			}
+
+			return Math.max(1, Math.min(limit, maxPageSize));
+		}
+	}
+
+	/**
+	 * write-behind settings for likes
+	 */
+	@Data
+	public static class Likes {
+
+		// buffer likes in memory and flush them in bulk instead of one update per like
+		private boolean writeBehindEnabled = true;
+
+		// delay between two flushes of the buffer
+		private long flushIntervalMs = 500;
+
+		// number of distinct tweets the buffer holds, likes on further tweets are written through
+		private int maxPendingTweets = 10000;
+
+		// number of distinct tweets which starts a flush before the interval is up
+		private int flushAtPendingTweets = 5000;
+	}
+
+	/**
+	 * settings for verified token handling
+	 */
+	@Data
+	public static class Jwt {
+
+		// number of verified tokens whose claims are kept until they expire
+		private long claimsCacheSize = 10000;
+	}
+
+	/**
+	 * sizing of the tweet-events topic and its listeners
+	 */
+	@Data
+	public static class Kafka {
+
+		// partitions of the tweet-events topic, bounds the useful listener concurrency
+		private int partitions = 6;
+
+		private short replicas = 1;
+
+		// listener threads per instance, each one owns a share of the partitions
+		private int concurrency = 3;
+
+		// binary or json, what producers write, consumers read both
+		private String eventFormat = "binary";
+
+		// a failing batch is retried with backoff for this long, then its failed record is
+		// published to tweet-events.DLT and the partition moves on
+		private long retryMaxElapsedMs = 15L * 60 * 1000;
+	}
+
+	/**
+	 * settings for the username typeahead search
+	 */
+	@Data
+	public static class Search {
+
+		// number of users returned for a prefix
+		private int maxResults = 20;
+
+		// answer searches from an in-memory sorted index of usernames instead of mongo
+		private boolean inMemoryIndex = false;
+	}
+
+	/**
+	 * sizing of the precomputed home timelines
+	 */
+	@Data
+	public static class Home {
+
+		// tweets kept per home timeline
+		private int capacity = 800;
+
+		// authors with more followers are merged on read instead of fanned out
+		private long heavyFollowerThreshold = 10000;
+
+		// tweet references the cached home timelines of an instance may hold, each takes
+		// about 130 bytes
+		private long maxReferences = 2000000;
+
+		// cached timelines are seeded again after this long, also the most a timeline
+		// cached on one instance lags behind tweets persisted by another
+		private long timelineTtlMinutes = 10;
+	}
+
+	/**
+	 * bounds of the hot tweet cache
+	 */
+	@Data
+	public static class Cache {
+
+		// most tweets cached at once
+		private long maxEntries = 10000;
+
+		// approximate heap the cached tweets may take
+		private long maxBytes = 16L * 1024 * 1024;
+
+		// cached tweets are read again from mongo after this long, edits and deletes on
+		// other instances show up here within it
+		private long ttlSeconds = 60;
+	}
+
+	/**
+	 * bounds of the user profile cache
+	 */
+	@Data
+	public static class Users {
+
+		// most users cached at once
+		private long cacheSize = 10000;
+
+		// cached users are read again from mongo after this long
+		private long ttlSeconds = 300;
+	}
+
+	/**
+	 * one-off data migrations run on startup
+	 */
+	@Data
+	public static class Migration {
+
+		// move legacy replies DBRef arrays to parentId / reply_cnt
+		private boolean legacyReplies = false;
+
+		// fill usernameLower for users registered before it existed
+		private boolean legacyUsernames = false;
+	}
+
+	/**
+	 * threading model of request handling, kafka consumers and async tasks
+	 */
+	@Data
+	public static class Threads {
+
+		// run them on virtual threads, needs a java 21+ runtime
+		private boolean virtual = false;
+	}
+
+	/**
+	 * live tweet stream connections
+	 */
+	@Data
+	public static class Stream {
+
+		// tweets buffered per connection, the oldest are dropped when a client falls behind
+		private int bufferSize = 256;
+
+		// connections are closed after this long, clients reconnect
+		private long timeoutMinutes = 30;
+
+		// keep-alive comment interval, also how fast dead connections are noticed
+		private long heartbeatMs = 15000;
+
+		// threads writing the buffers out to the connections
+		private int writerThreads = 8;
+
+		// pending drains and heartbeats, a connection whose write does not fit is closed
+		private int writerQueueSize = 10000;
+
+		// ids of recently streamed tweets, a redelivered tweet among them is not streamed again
+		private int recentIds = 10000;
+	}
+
+	/**
+	 * streamed tweet exports
+	 */
+	@Data
+	public static class Export {
+
+		// documents per mongo cursor batch, also how often the response is flushed
+		private int batchSize = 500;
+	}
+
+	/**
+	 * ndjson backup / seeding of the tweets and users collections, run from the
+	 * command line
+	 */
+	@Data
+	public static class Bulk {
+
+		// export, import or none
+		private String mode = "none";
+
+		// directory holding the <collection>.ndjson.gz files
+		private String dir = "bulk";
+
+		// documents per insertMany and per cursor batch
+		private int batchSize = 1000;
+
+		// throughput is logged every this many documents
+		private int reportEvery = 100000;
+	}
+
+	/**
+	 * local outbox new tweets are appended to before being relayed to kafka
+	 */
+	@Data
+	public static class Outbox {
+
+		// off sends every post straight to kafka
+		private boolean enabled = true;
+
+		// directory of the segments and the relay checkpoint, one per instance
+		private String dir = "outbox";
+
+		// size of each memory-mapped segment, a new one is started when it is full
+		private int segmentBytes = 16 * 1024 * 1024;
+
+		// also flush each append to the disk, not only to the page cache
+		private boolean forceOnAppend = false;
+
+		// events sent to kafka before waiting for their acknowledgements
+		private int batchSize = 500;
+
+		// how long the idle relay waits for new events
+		private long idleWaitMs = 50;
+
+		// a batch not acknowledged within this is sent again
+		private long sendTimeoutMs = 30000;
+
+		private long retryBackoffMs = 1000;
+	}
+
+	/**
+	 * mongo client settings not covered by spring.data.mongodb
+	 */
+	@Data
+	public static class Mongo {
+
+		// connections per client, the reactive profile keeps many requests waiting on them
+		private int maxPoolSize = 100;
+	}
+}
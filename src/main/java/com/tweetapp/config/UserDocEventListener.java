@@ -0,0 +1,28 @@
+package com.tweetapp.config;
+
+import java.util.Locale;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import com.tweetapp.document.UserDoc;
+
+/**
+ * keeps the derived fields of a user in step with the username on every save
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Component
+public class UserDocEventListener extends AbstractMongoEventListener<UserDoc> {
+
+	@Override
+	public void onBeforeConvert(BeforeConvertEvent<UserDoc> event) {
+		UserDoc user = event.getSource();
+
+		if (user.getUsername() != null) {
+			user.setUsernameLower(user.getUsername().toLowerCase(Locale.ROOT));
+		}
+	}
+}
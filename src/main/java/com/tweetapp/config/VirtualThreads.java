@@ -0,0 +1,67 @@
+package com.tweetapp.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * factory for executors running each task on a new virtual thread. the build
+ * targets java 17 so the java 21 Thread.ofVirtual() api is looked up
+ * reflectively
+ * 
+ * @author prateekpurohit
+ *
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * method to check whether the running jvm offers virtual threads
+	 * 
+	 * @return
+	 */
+	public static boolean isSupported() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * method to create an executor starting one virtual thread per task, the
+	 * threads are named prefix0, prefix1...
+	 * 
+	 * @param prefix
+	 * @return
+	 */
+	public static SimpleAsyncTaskExecutor executor(String prefix) {
+		return new SimpleAsyncTaskExecutor(threadFactory(prefix));
+	}
+
+	/**
+	 * method to create a virtual thread factory
+	 * 
+	 * @param prefix
+	 * @return
+	 * @throws IllegalStateException when the jvm is older than java 21
+	 */
+	public static ThreadFactory threadFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Method name = builderType.getMethod("name", String.class, long.class);
+			Method factory = builderType.getMethod("factory");
+
+			return (ThreadFactory) factory.invoke(name.invoke(builder, prefix, 0L));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("virtual threads need a java 21+ runtime, running on java "
+					+ System.getProperty("java.version"), e);
+		}
+	}
+}
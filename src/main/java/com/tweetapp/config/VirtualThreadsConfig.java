@@ -0,0 +1,70 @@
+package com.tweetapp.config;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * runs tomcat request handling and mvc async tasks on virtual threads when
+ * tweets.threads.virtual is set, so requests blocked on mongo or kafka no
+ * longer hold a platform thread. the kafka consumers are switched in
+ * TweetEventsConsumerConfig. on a jvm without virtual threads the flag is
+ * ignored with a warning and everything stays on the usual thread pools
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "tweets.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+	@PostConstruct
+	public void warnIfUnsupported() {
+		if (!VirtualThreads.isSupported()) {
+			log.warn("tweets.threads.virtual is set but java {} has no virtual threads, staying on platform threads",
+					System.getProperty("java.version"));
+		}
+	}
+
+	/**
+	 * tomcat hands every request to a new virtual thread instead of its worker
+	 * pool, server.tomcat.threads.max no longer caps the requests in flight
+	 * 
+	 * @return
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+		if (!VirtualThreads.isSupported()) {
+			return protocolHandler -> {
+			};
+		}
+
+		log.info("handling requests on virtual threads");
+		return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.executor("http-vt-"));
+	}
+
+	/**
+	 * replaces the pooled executor of spring boot used by mvc async requests,
+	 * which is built as usual without virtual threads
+	 * 
+	 * @param builder
+	 * @return
+	 */
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor" })
+	public AsyncTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+		if (!VirtualThreads.isSupported()) {
+			return builder.build();
+		}
+
+		return VirtualThreads.executor("task-vt-");
+	}
+}
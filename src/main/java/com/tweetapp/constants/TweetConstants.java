@@ -21,6 +21,8 @@ public class TweetConstants {
 	public static final String SUCCESS_REPLY_TWEET_MSG = "replied to tweet successfully";
 	public static final String SUCCESS_UPDATE_TWEET = "tweet updated successfully";
 	public static final String SUCCESS_CREATE_TWEET_MSG = "tweet added successfully";
+	public static final String SUCCESS_FOLLOW_MSG = "user followed successfully";
+	public static final String SUCCESS_UNFOLLOW_MSG = "user unfollowed successfully";
 	
 	//error message description
 	public static final String TWEETS_NOT_FOUND_MESSAGE = "no tweets found for this username";
@@ -36,6 +38,8 @@ public class TweetConstants {
 	public static final String USER_NOT_LIKE_MSG = "user cannot like their own tweets";
 	public static final String TWEET_LIMIT_EXCEED = "tweet cannot exceed 144 characters";
 	public static final String TOKEN_NOT_PASSED_MSG = "auth token is not present";
+	public static final String INVALID_CURSOR_MSG = "the page cursor is invalid";
+	public static final String USER_NOT_FOLLOW_MSG = "user cannot follow themselves";
 	
 	//constants
 	public static final String BASE_PATH = "src/test/resources/";
@@ -46,4 +50,9 @@ public class TweetConstants {
 	public static final String JWT_HEADER = "Authorization";
 	public static final String JWT_KEY = "jxgEQeXHuPq8VdbyYFNkANdudQ53YUn4";
 	public static final String USERNAME_CLAIM = "username";
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	public static final String TWEET_EVENTS_TOPIC = "tweet-events";
+	public static final String TWEET_EVENTS_DLT = TWEET_EVENTS_TOPIC + ".DLT";
+	public static final String SERVICE_TIMER = "tweets.service";
+	public static final String REPOSITORY_TIMER = "tweets.repository";
 }
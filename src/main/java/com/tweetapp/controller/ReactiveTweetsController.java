@@ -0,0 +1,118 @@
+package com.tweetapp.controller;
+
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.dto.PostTweetDto;
+import com.tweetapp.exception.InvalidCursorException;
+import com.tweetapp.exception.InvalidTokenException;
+import com.tweetapp.service.IReactiveTweetService;
+import com.tweetapp.util.JwtUtil;
+import com.tweetapp.util.TweetUtil;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Mono;
+
+/**
+ * non-blocking variant of the tweet read / write endpoints, only mapped with
+ * the reactive profile. the request thread is released as soon as the mono is
+ * returned and the response is written once mongo / kafka complete it
+ * 
+ * @author prateekpurohit
+ *
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/reactive")
+@Tag(name = "reactive tweet services", description = "non-blocking api endpoints for tweet reads and writes")
+public class ReactiveTweetsController {
+
+	@Autowired
+	private IReactiveTweetService reactiveTweetService;
+
+	@Autowired
+	private TweetUtil tweetUtil;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	/**
+	 * rest service to get a page of all tweets, newest first. the cursor for the
+	 * next page is sent back in the X-Next-Cursor header
+	 * 
+	 * @param before
+	 * @param limit
+	 * @return
+	 * @throws InvalidCursorException
+	 */
+	@GetMapping("/all")
+	public Mono<ResponseEntity<MappingJacksonValue>> getAllTweets(@RequestParam(required = false) String before,
+			@RequestParam(required = false) Integer limit) throws InvalidCursorException {
+
+		return reactiveTweetService.getAllTweets(tweetUtil.decodeCursor(before), limit).map(tweetUtil::toPageResponse);
+	}
+
+	/**
+	 * rest service to get a page of the tweets of a particular username, newest
+	 * first. the cursor for the next page is sent back in the X-Next-Cursor header
+	 * 
+	 * @param username
+	 * @param before
+	 * @param limit
+	 * @return
+	 * @throws InvalidCursorException
+	 */
+	@GetMapping("/{username}")
+	public Mono<ResponseEntity<MappingJacksonValue>> getTweetsByUsername(@PathVariable String username,
+			@RequestParam(required = false) String before, @RequestParam(required = false) Integer limit)
+			throws InvalidCursorException {
+
+		return reactiveTweetService.getTweetsByUsername(username, tweetUtil.decodeCursor(before), limit)
+				.map(tweetUtil::toPageResponse);
+	}
+
+	/**
+	 * rest service to post a new tweet by a user, answers once kafka acknowledged
+	 * the tweet event
+	 * 
+	 * @param username
+	 * @param tweet
+	 * @param authToken
+	 * @return
+	 * @throws InvalidTokenException
+	 */
+	@PostMapping("/{username}/add")
+	public Mono<ResponseEntity<String>> postTweet(@PathVariable String username, @RequestBody PostTweetDto tweet,
+			@RequestHeader("Authorization") String authToken) throws InvalidTokenException {
+
+		if (!jwtUtil.extractUsername(authToken).equals(username)) {
+			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
+		}
+
+		TweetDoc tweetDoc = new TweetDoc();
+		tweetDoc.setId(new ObjectId().toHexString());
+		tweetDoc.setMessage(tweet.getTweetMessage());
+		tweetDoc.setHandle(username);
+		tweetDoc.setCreatedAt(new Date());
+
+		return reactiveTweetService.postTweet(tweetDoc)
+				.thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(TweetConstants.SUCCESS_CREATE_TWEET_MSG));
+	}
+}
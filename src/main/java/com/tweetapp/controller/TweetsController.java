@@ -1,10 +1,15 @@
 package com.tweetapp.controller;
 
+import java.io.IOException;
 import java.util.Date;
-import java.util.List;
+
+import org.bson.types.ObjectId;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -15,18 +20,26 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.tweetapp.cache.TimelineVersions;
 import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.document.TweetDoc;
 import com.tweetapp.dto.PostTweetDto;
+import com.tweetapp.exception.InvalidCursorException;
 import com.tweetapp.exception.InvalidTokenException;
 import com.tweetapp.exception.InvalidTweetException;
 import com.tweetapp.exception.InvalidUserException;
 import com.tweetapp.exception.NoTweetsFoundException;
-import com.tweetapp.kafka.TweetEventProducer;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
+import com.tweetapp.outbox.TweetOutbox;
 import com.tweetapp.service.ITweetService;
+import com.tweetapp.stream.TweetStreamHub;
 import com.tweetapp.util.JwtUtil;
 import com.tweetapp.util.TweetUtil;
 
@@ -49,53 +62,87 @@ public class TweetsController {
 	private TweetUtil tweetUtil;
 
 	@Autowired
-	private TweetEventProducer tweetEventProducer;
+	private TweetOutbox tweetOutbox;
 	
 	@Autowired
 	private JwtUtil jwtUtil;
 
+	@Autowired
+	private TweetStreamHub tweetStream;
+
+	@Autowired
+	private TimelineVersions timelineVersions;
+
 	/**
-	 * rest service to get all tweets for a particular username
+	 * rest service to get a page of the tweets of a particular username, newest
+	 * first. the cursor for the next page is sent back in the X-Next-Cursor
+	 * header. answers 304 without a body, and without reading the page, when the
+	 * client's etag still matches the version of the user's timeline
 	 * 
 	 * @param username
+	 * @param before
+	 * @param limit
+	 * @param request
 	 * @return
 	 * @throws NoTweetsFoundException
 	 * @throws InvalidTokenException
+	 * @throws InvalidCursorException
 	 */
 	@GetMapping("/{username}")
-	public ResponseEntity<MappingJacksonValue> getTweetsByUsername(
-			@PathVariable String username) throws NoTweetsFoundException, InvalidTokenException {
+	public ResponseEntity<MappingJacksonValue> getTweetsByUsername(@PathVariable String username,
+			@RequestParam(required = false) String before, @RequestParam(required = false) Integer limit,
+			ServletWebRequest request) throws NoTweetsFoundException, InvalidTokenException, InvalidCursorException {
 
-		List<TweetDoc> tweets = tweetService.getTweetsByUsername(username);
+		TimelineCursor cursor = tweetUtil.decodeCursor(before);
 
-		// filter out the unnecessary fields in the tweets list
-		MappingJacksonValue tweetsMapping = tweetUtil.filterTweetData(tweets);
+		// the version is one _id lookup, the page is only read when it changed
+		if (isNotModified(request, timelineVersions.userEtag(username))) {
+			return null;
+		}
 
-		return ResponseEntity.status(HttpStatus.OK).body(tweetsMapping);
+		return tweetUtil.toPageResponse(tweetService.getTweetsByUsername(username, cursor, limit));
 	}
 
 	/**
-	 * method to post a new tweet by a user
+	 * rest service to export all the tweets of a particular username, newest
+	 * first. the json array is written while the tweets are read from mongo, so
+	 * the full list is never held in memory
+	 * 
+	 * @param username
+	 * @return
+	 */
+	@GetMapping("/{username}/export")
+	public ResponseEntity<StreamingResponseBody> exportTweetsByUsername(@PathVariable String username) {
+
+		StreamingResponseBody body = out -> tweetService.exportTweetsByUsername(username, out);
+
+		return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	/**
+	 * method to post a new tweet by a user, accepted once it is in the local
+	 * outbox. the id is assigned here so a redelivered event is saved only once
 	 * 
 	 * @param username
 	 * @param tweet
 	 * @return
-	 * @throws JsonProcessingException
+	 * @throws IOException
 	 * @throws InvalidTokenException
 	 */
 	@PostMapping("/{username}/add")
 	public ResponseEntity<String> postTweet(@PathVariable String username, @RequestBody PostTweetDto tweet,
-			@RequestHeader("Authorization") String authToken) throws JsonProcessingException, InvalidTokenException {
+			@RequestHeader("Authorization") String authToken) throws IOException, InvalidTokenException {
 
 		String tokenUsername = jwtUtil.extractUsername(authToken);
 		
 		TweetDoc tweetDoc = new TweetDoc();
 		
 		if(tokenUsername.equals(username)) {
+			tweetDoc.setId(new ObjectId().toHexString());
 			tweetDoc.setMessage(tweet.getTweetMessage());
 			tweetDoc.setHandle(username);
 			tweetDoc.setCreatedAt(new Date());
-			tweetEventProducer.sendTweetEvent(tweetDoc);
+			tweetOutbox.publish(tweetDoc);
 			return ResponseEntity.status(HttpStatus.CREATED).body(TweetConstants.SUCCESS_CREATE_TWEET_MSG);
 		}
 		else {
@@ -105,22 +152,88 @@ public class TweetsController {
 	}
 
 	/**
-	 * method to get all tweets
+	 * method to open a live stream of newly posted tweets as server-sent events,
+	 * clients load the timeline once with /all and then only receive new tweets
 	 * 
-	 * @param authToken
+	 * @return
+	 */
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamTweets() {
+		return tweetStream.subscribe();
+	}
+
+	/**
+	 * method to get a page of all tweets, newest first. the cursor for the next
+	 * page is sent back in the X-Next-Cursor header. answers 304 without a body,
+	 * and without reading the page, when the client's etag still matches the
+	 * version of the timeline
+	 * 
+	 * @param before
+	 * @param limit
+	 * @param request
 	 * @return
 	 * @throws InvalidTokenException
 	 * @throws NoTweetsFoundException 
+	 * @throws InvalidCursorException 
 	 */
 	@GetMapping("/all")
-	public ResponseEntity<MappingJacksonValue> getAllTweets()
-			throws InvalidTokenException, NoTweetsFoundException {
-		List<TweetDoc> tweets = tweetService.getAllTweets();
+	public ResponseEntity<MappingJacksonValue> getAllTweets(@RequestParam(required = false) String before,
+			@RequestParam(required = false) Integer limit, ServletWebRequest request)
+			throws InvalidTokenException, NoTweetsFoundException, InvalidCursorException {
+
+		TimelineCursor cursor = tweetUtil.decodeCursor(before);
+
+		if (isNotModified(request, timelineVersions.timelineEtag())) {
+			return null;
+		}
+
+		return tweetUtil.toPageResponse(tweetService.getAllTweets(cursor, limit));
+	}
+
+	/**
+	 * method to get a page of the home timeline of the logged in user, newest
+	 * first. the cursor for the next page is sent back in the X-Next-Cursor header
+	 * 
+	 * @param username
+	 * @param authToken
+	 * @param before
+	 * @param limit
+	 * @return
+	 * @throws InvalidTokenException
+	 * @throws InvalidCursorException
+	 */
+	@GetMapping("/{username}/home")
+	public ResponseEntity<MappingJacksonValue> getHomeTimeline(@PathVariable("username") String username,
+			@RequestHeader("Authorization") String authToken, @RequestParam(required = false) String before,
+			@RequestParam(required = false) Integer limit) throws InvalidTokenException, InvalidCursorException {
 
-		// filter out the unnecessary fields in the tweets list
-		MappingJacksonValue tweetsMapping = tweetUtil.filterTweetData(tweets);
+		if (!jwtUtil.extractUsername(authToken).equals(username)) {
+			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
+		}
 
-		return ResponseEntity.status(HttpStatus.OK).body(tweetsMapping);
+		TweetPage page = tweetService.getHomeTimeline(username, tweetUtil.decodeCursor(before), limit);
+
+		return tweetUtil.toPageResponse(page);
+	}
+
+	/**
+	 * method to get a page of the replies to a tweet, oldest first. the cursor for
+	 * the next page is sent back in the X-Next-Cursor header
+	 * 
+	 * @param id
+	 * @param after
+	 * @param limit
+	 * @return
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidCursorException
+	 */
+	@GetMapping("/{id}/replies")
+	public ResponseEntity<MappingJacksonValue> getReplies(@PathVariable("id") String id,
+			@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit)
+			throws NoTweetsFoundException, InvalidCursorException {
+		TweetPage page = tweetService.getReplies(id, tweetUtil.decodeCursor(after), limit);
+
+		return tweetUtil.toPageResponse(page);
 	}
 
 	/**
@@ -210,4 +323,19 @@ public class TweetsController {
 		tweetService.updateTweetById(id, username, token, tweet);
 		return ResponseEntity.status(HttpStatus.OK).body(TweetConstants.SUCCESS_UPDATE_TWEET);
 	}
+
+	/**
+	 * method to answer a conditional get. private no-cache lets the client keep
+	 * the page and revalidate it with its etag on every poll
+	 * 
+	 * @param request
+	 * @param etag
+	 * @return true when the response is a 304
+	 */
+	private boolean isNotModified(ServletWebRequest request, String etag) {
+		request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+				CacheControl.noCache().cachePrivate().getHeaderValue());
+
+		return request.checkNotModified(etag);
+	}
 }
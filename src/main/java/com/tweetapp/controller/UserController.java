@@ -92,6 +92,46 @@ public class UserController {
 		return new ResponseEntity<>(TweetConstants.UPDATE_PASS_MSG, HttpStatus.OK);
 	}
 
+	/**
+	 * method to follow another user
+	 * 
+	 * @param username
+	 * @param followee
+	 * @param token
+	 * @return
+	 * @throws InvalidTokenException
+	 * @throws InvalidUserException
+	 * @throws NoUsersFoundException
+	 */
+	@PostMapping("/{username}/follow/{followee}")
+	public ResponseEntity<String> followUser(@PathVariable("username") String username,
+			@PathVariable("followee") String followee, @RequestHeader("Authorization") String token)
+			throws InvalidTokenException, InvalidUserException, NoUsersFoundException {
+
+		userService.followUser(username, followee, token);
+
+		return new ResponseEntity<>(TweetConstants.SUCCESS_FOLLOW_MSG, HttpStatus.OK);
+	}
+
+	/**
+	 * method to stop following a user
+	 * 
+	 * @param username
+	 * @param followee
+	 * @param token
+	 * @return
+	 * @throws InvalidTokenException
+	 */
+	@PostMapping("/{username}/unfollow/{followee}")
+	public ResponseEntity<String> unfollowUser(@PathVariable("username") String username,
+			@PathVariable("followee") String followee, @RequestHeader("Authorization") String token)
+			throws InvalidTokenException {
+
+		userService.unfollowUser(username, followee, token);
+
+		return new ResponseEntity<>(TweetConstants.SUCCESS_UNFOLLOW_MSG, HttpStatus.OK);
+	}
+
 	/**
 	 * rest api call to get all users
 	 * 
@@ -0,0 +1,38 @@
+package com.tweetapp.document;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * edge of the follow graph, follower follows followee
+ * follower_idx lists the users someone follows and keeps each edge unique
+ * followee_idx lists the followers of a user
+ * @author prateekpurohit
+ *
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection="follows")
+@CompoundIndexes({
+	@CompoundIndex(name = "follower_idx", def = "{'follower': 1, 'followee': 1}", unique = true),
+	@CompoundIndex(name = "followee_idx", def = "{'followee': 1, 'follower': 1}")
+})
+public class FollowDoc {
+	@Id
+	private String id;
+	
+	private String follower;
+	
+	private String followee;
+	
+	private Date createdAt;
+}
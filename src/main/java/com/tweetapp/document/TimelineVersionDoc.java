@@ -0,0 +1,25 @@
+package com.tweetapp.document;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * version counter of one timeline, bumped after every write which changes what
+ * the timeline shows. the id is the key of the timeline, see TimelineVersions
+ * @author prateekpurohit
+ *
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection="timelineVersions")
+public class TimelineVersionDoc {
+	@Id
+	private String id;
+
+	private long version;
+}
@@ -1,10 +1,10 @@
 package com.tweetapp.document;
 
 import java.util.Date;
-import java.util.List;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -17,6 +17,9 @@ import lombok.NoArgsConstructor;
 
 /**
  * tweet model for storing and retrieving tweets
+ * timeline_idx backs the keyset paginated global timeline
+ * replies_idx backs the paginated replies of a tweet
+ * user_timeline_idx backs the paginated tweets of a user
  * @author prateekpurohit
  *
  */
@@ -24,6 +27,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Data
 @Document(collection="tweets")
+@CompoundIndexes({
+	@CompoundIndex(name = "timeline_idx", def = "{'isReply': 1, 'creat_tm': -1, '_id': -1}"),
+	@CompoundIndex(name = "replies_idx", def = "{'parentId': 1, 'creat_tm': 1, '_id': 1}"),
+	@CompoundIndex(name = "user_timeline_idx", def = "{'handle': 1, 'creat_tm': -1, '_id': -1}")
+})
 @JsonFilter("TweetDocFilter")
 public class TweetDoc {
 	@Id
@@ -47,6 +55,9 @@ public class TweetDoc {
 	
 	private boolean isReply = false;
 	
-	@DBRef(lazy = true)
-	private List<TweetDoc> replies;
+	// id of the tweet this one replies to
+	private String parentId;
+	
+	@Field(name="reply_cnt")
+	private Long replyCount = 0L;
 }
@@ -41,9 +41,17 @@ public class UserDoc {
 	@Indexed(unique=true)
 	private String username;
 	
+	// lower cased username backing the prefix search, kept in step on every save
+	@Indexed
+	private String usernameLower;
+	
 	@NonNull
 	private String password;
 	
 	@NonNull
 	private Long contactNumber;
+	
+	private Long followersCount = 0L;
+	
+	private Long followingCount = 0L;
 }
@@ -0,0 +1,20 @@
+package com.tweetapp.exception;
+
+/**
+ * exception for a malformed timeline cursor
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class InvalidCursorException extends Exception {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public InvalidCursorException(String message) {
+		super(message);
+	}
+
+}
@@ -172,4 +172,18 @@ public class TweetsExceptionHandler extends ResponseEntityExceptionHandler {
 
 		return new ResponseEntity<>(globalExceptionModel, HttpStatus.BAD_REQUEST);
 	}
+
+	/**
+	 * exception handler for InvalidCursorException
+	 * @param e
+	 * @return
+	 */
+	@ExceptionHandler(InvalidCursorException.class)
+	public ResponseEntity<TweetsExceptionHandlerModel> handleInvalidCursorException(InvalidCursorException e){
+		globalExceptionModel.setErrorMessage(e.getMessage());
+		globalExceptionModel.setErrorDescription("");
+		globalExceptionModel.setErrorCreationDate(new Date());
+
+		return new ResponseEntity<>(globalExceptionModel, HttpStatus.BAD_REQUEST);
+	}
 }
@@ -0,0 +1,24 @@
+package com.tweetapp.exception;
+
+import java.io.IOException;
+
+/**
+ * exception for a tweet event written in a format version this consumer does
+ * not know yet. unlike a malformed event it is not skipped, it is retried until
+ * an upgraded consumer picks it up
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class UnsupportedEventVersionException extends IOException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public UnsupportedEventVersionException(String message) {
+		super(message);
+	}
+
+}
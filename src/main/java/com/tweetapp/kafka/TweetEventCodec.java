@@ -0,0 +1,208 @@
+package com.tweetapp.kafka;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.exception.UnsupportedEventVersionException;
+import com.tweetapp.util.JsonViewUtil;
+
+/**
+ * encoding of the tweet-events values. the binary format starts with a magic
+ * byte and a version, then the fields of the event view:
+ * [magic][version][flags][id][createdAt][likes][handle][message][avatarUrl].
+ * object ids take their 12 raw bytes, numbers are varints and strings are a
+ * varint of length + 1 (0 for null) followed by utf-8. records without the
+ * magic byte are the legacy json events and are still decoded, so consumers
+ * can be upgraded before producers switch tweets.kafka.event-format to binary
+ *
+ * @author prateekpurohit
+ *
+ */
+@Component
+public class TweetEventCodec {
+
+	// constants
+	public static final String BINARY_FORMAT = "binary";
+	public static final String JSON_FORMAT = "json";
+
+	// a utf-8 continuation byte, never the first byte of a json event
+	static final byte MAGIC = (byte) 0xB7;
+	static final byte VERSION = 1;
+
+	private static final int REPLY = 1;
+	private static final int OBJECT_ID = 1 << 1;
+	private static final int STRING_ID = 1 << 2;
+	private static final int CREATED_AT = 1 << 3;
+	private static final int LIKES = 1 << 4;
+
+	@Autowired
+	private JsonViewUtil jsonViewUtil;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	/**
+	 * method to encode a tweet in the configured event format
+	 *
+	 * @param tweet
+	 * @return
+	 * @throws JsonProcessingException
+	 */
+	public byte[] encode(TweetDoc tweet) throws JsonProcessingException {
+
+		if (JSON_FORMAT.equals(tweetsProperties.getKafka().getEventFormat())) {
+			return jsonViewUtil.getTweetEventWriter().writeValueAsBytes(tweet);
+		}
+
+		return encodeBinary(tweet);
+	}
+
+	/**
+	 * method to decode an event of either format
+	 *
+	 * @param value
+	 * @return
+	 * @throws UnsupportedEventVersionException when the event is of a newer version
+	 * @throws IOException when the event is malformed
+	 */
+	public TweetDoc decode(byte[] value) throws IOException {
+
+		if (value.length == 0 || value[0] != MAGIC) {
+			return jsonViewUtil.getTweetEventReader().readValue(value);
+		}
+
+		try {
+			return decodeBinary(ByteBuffer.wrap(value));
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("malformed tweet event", e);
+		}
+	}
+
+	private byte[] encodeBinary(TweetDoc tweet) {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64 + length(tweet.getMessage()));
+		String id = tweet.getId();
+		boolean objectId = id != null && ObjectId.isValid(id);
+
+		int flags = (tweet.isReply() ? REPLY : 0) | (objectId ? OBJECT_ID : 0)
+				| (id != null && !objectId ? STRING_ID : 0) | (tweet.getCreatedAt() != null ? CREATED_AT : 0)
+				| (tweet.getLikesOnTweet() != null ? LIKES : 0);
+
+		out.write(MAGIC);
+		out.write(VERSION);
+		out.write(flags);
+
+		if (objectId) {
+			out.writeBytes(new ObjectId(id).toByteArray());
+		} else if (id != null) {
+			writeString(out, id);
+		}
+		if (tweet.getCreatedAt() != null) {
+			writeVarLong(out, tweet.getCreatedAt().getTime());
+		}
+		if (tweet.getLikesOnTweet() != null) {
+			writeVarLong(out, tweet.getLikesOnTweet());
+		}
+		writeString(out, tweet.getHandle());
+		writeString(out, tweet.getMessage());
+		writeString(out, tweet.getAvatarUrl());
+
+		return out.toByteArray();
+	}
+
+	private TweetDoc decodeBinary(ByteBuffer in) throws IOException {
+
+		in.get();
+		byte version = in.get();
+		if (version != VERSION) {
+			throw new UnsupportedEventVersionException("unsupported tweet event version " + version);
+		}
+
+		int flags = in.get();
+		TweetDoc tweet = new TweetDoc();
+		tweet.setReply((flags & REPLY) != 0);
+
+		if ((flags & OBJECT_ID) != 0) {
+			byte[] id = new byte[12];
+			in.get(id);
+			tweet.setId(new ObjectId(id).toHexString());
+		} else if ((flags & STRING_ID) != 0) {
+			tweet.setId(readString(in));
+		}
+		if ((flags & CREATED_AT) != 0) {
+			tweet.setCreatedAt(new Date(readVarLong(in)));
+		}
+		tweet.setLikesOnTweet((flags & LIKES) != 0 ? readVarLong(in) : null);
+
+		// handle and message are @NonNull, absent ones stay unset as with json
+		String handle = readString(in);
+		if (handle != null) {
+			tweet.setHandle(handle);
+		}
+		String message = readString(in);
+		if (message != null) {
+			tweet.setMessage(message);
+		}
+		tweet.setAvatarUrl(readString(in));
+
+		return tweet;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		if (value == null) {
+			writeVarLong(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length + 1L);
+		out.writeBytes(bytes);
+	}
+
+	private static String readString(ByteBuffer in) {
+		long length = readVarLong(in);
+		if (length == 0) {
+			return null;
+		}
+		if (length - 1 > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[(int) (length - 1)];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("varint too long");
+	}
+}
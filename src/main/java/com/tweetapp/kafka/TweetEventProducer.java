@@ -8,47 +8,88 @@ import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.ser.FilterProvider;
-import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
-import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.tweetapp.document.TweetDoc;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
 @Slf4j
 public class TweetEventProducer {
 
+	// constants
+	private static final String SEND_TIMER = "tweets.events.send";
+
+	@Autowired
+	private KafkaTemplate<String, byte[]> kafkaTemplate;
+
 	@Autowired
-	private KafkaTemplate<String, String> kafkaTemplate;
+	private TweetEventCodec tweetEventCodec;
 
-	public void sendTweetEvent(TweetDoc tweet) throws JsonProcessingException {
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * method to publish a tweet event, the returned future completes once the
+	 * broker acknowledged it so callers can wait on it without blocking
+	 *
+	 * @param tweet
+	 * @return
+	 * @throws JsonProcessingException
+	 */
+	public ListenableFuture<SendResult<String, byte[]>> sendTweetEvent(TweetDoc tweet)
+			throws JsonProcessingException {
+		return send(eventKey(tweet), eventValue(tweet));
+	}
 
-		//filter
-		FilterProvider filters = new SimpleFilterProvider().addFilter("TweetDocFilter", SimpleBeanPropertyFilter
-				.filterOutAllExcept("message", "createdAt", "handle", "avatarUrl", "likesOnTweet", "reply"));
+	/**
+	 * key by author so one user's tweets stay ordered within a partition
+	 *
+	 * @param tweet
+	 * @return
+	 */
+	public String eventKey(TweetDoc tweet) {
+		return tweet.getHandle();
+	}
 
-		ObjectWriter writer = new ObjectMapper().writer(filters);
+	public byte[] eventValue(TweetDoc tweet) throws JsonProcessingException {
+		return tweetEventCodec.encode(tweet);
+	}
 
-		String key = tweet.getId();
-		String value = writer.writeValueAsString(tweet);
+	/**
+	 * method to send an already encoded tweet event. the time to the
+	 * acknowledgement is recorded in tweets.events.send by result
+	 *
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public ListenableFuture<SendResult<String, byte[]>> send(String key, byte[] value) {
 
-		ListenableFuture<SendResult<String, String>> listenableFuture = kafkaTemplate.sendDefault(key, value);
-		listenableFuture.addCallback(new ListenableFutureCallback<SendResult<String, String>>() {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		ListenableFuture<SendResult<String, byte[]>> listenableFuture = kafkaTemplate.sendDefault(key, value);
+		listenableFuture.addCallback(new ListenableFutureCallback<SendResult<String, byte[]>>() {
 
 			@Override
-			public void onSuccess(SendResult<String, String> result) {
-				log.error("tweet sent to kafka topic successfully");
+			public void onSuccess(SendResult<String, byte[]> result) {
+				sample.stop(sendTimer("success"));
+				log.debug("tweet sent to kafka topic successfully");
 			}
 
 			@Override
 			public void onFailure(Throwable ex) {
-				log.info("sending tweet to kafka failed");
-
+				sample.stop(sendTimer("failure"));
+				log.error("sending tweet to kafka failed", ex);
 			}
 
 		});
+
+		return listenableFuture;
+	}
+
+	private Timer sendTimer(String result) {
+		return Timer.builder(SEND_TIMER).description("time until the broker acknowledged a tweet event")
+				.tag("result", result).register(meterRegistry);
 	}
 }
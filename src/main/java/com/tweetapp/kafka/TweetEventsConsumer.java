@@ -1,31 +1,84 @@
 package com.tweetapp.kafka;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.document.TweetDoc;
-import com.tweetapp.exception.InvalidTweetException;
+import com.tweetapp.exception.UnsupportedEventVersionException;
 import com.tweetapp.service.ITweetService;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Component
 public class TweetEventsConsumer {
 
 	@Autowired
 	private ITweetService tweetService;
 
-	@KafkaListener(topics = { "tweet-events" })
-	public void onMessage(ConsumerRecord<String, String> consumerRecord)
-			throws JsonProcessingException, InvalidTweetException {
-		String value = consumerRecord.value();
-		
-		//get the tweet object
-		TweetDoc tweet = new ObjectMapper().readValue(value, TweetDoc.class);
+	@Autowired
+	private TweetEventCodec tweetEventCodec;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private DistributionSummary batchSizes;
+
+	private Counter malformedEvents;
+
+	private Counter unsupportedEvents;
+
+	@PostConstruct
+	public void registerMetrics() {
+		batchSizes = DistributionSummary.builder("tweets.events.batch.size")
+				.description("tweet events handed to the listener per poll").register(meterRegistry);
+		malformedEvents = Counter.builder("tweets.events.malformed").description("tweet events which were skipped")
+				.register(meterRegistry);
+		unsupportedEvents = Counter.builder("tweets.events.unsupported")
+				.description("tweet events of a newer version which were handed back for retry").register(meterRegistry);
+	}
+
+	@KafkaListener(topics = { TweetConstants.TWEET_EVENTS_TOPIC })
+	public void onMessages(List<ConsumerRecord<String, byte[]>> consumerRecords) {
+
+		batchSizes.record(consumerRecords.size());
+		List<TweetDoc> tweets = new ArrayList<>(consumerRecords.size());
+
+		for (ConsumerRecord<String, byte[]> consumerRecord : consumerRecords) {
+			try {
+				// get the tweet object, binary or legacy json
+				tweets.add(tweetEventCodec.decode(consumerRecord.value()));
+			} catch (UnsupportedEventVersionException e) {
+				// written by a newer producer, save what came before it and fail the batch
+				// at this record, the error handler commits up to it and retries from it
+				// with backoff until an upgraded consumer takes over the partition, or
+				// dead-letters it once the retries run out
+				unsupportedEvents.increment();
+				log.warn("retrying tweet event of a newer version at {}-{}@{}", consumerRecord.topic(),
+						consumerRecord.partition(), consumerRecord.offset());
+				tweetService.addTweets(tweets);
+				throw new BatchListenerFailedException(e.getMessage(), e, consumerRecord);
+			} catch (IOException e) {
+				malformedEvents.increment();
+				log.error("skipping malformed tweet event at {}-{}@{}", consumerRecord.topic(),
+						consumerRecord.partition(), consumerRecord.offset(), e);
+			}
+		}
 
-		//save the tweet
-		tweetService.addTweet(tweet);
+		// save the tweets
+		tweetService.addTweets(tweets);
 	}
 }
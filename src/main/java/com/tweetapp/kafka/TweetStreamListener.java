@@ -0,0 +1,91 @@
+package com.tweetapp.kafka;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import com.tweetapp.cache.UserProfileCache;
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.service.ITweetService;
+import com.tweetapp.stream.TweetStreamHub;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * feeds the live stream of this instance. it is assigned every partition of
+ * tweet-events instead of joining a consumer group, so every instance streams
+ * every new tweet and not only the partitions its TweetEventsConsumer was
+ * assigned, and no group is left behind when an instance goes away. it starts
+ * at the end of each partition and never commits, clients load the timeline
+ * before they open the stream
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class TweetStreamListener implements ConsumerSeekAware {
+
+	@Autowired
+	private TweetEventCodec tweetEventCodec;
+
+	@Autowired
+	private ITweetService tweetService;
+
+	@Autowired
+	private UserProfileCache userProfiles;
+
+	@Autowired
+	private TweetStreamHub tweetStream;
+
+	@Override
+	public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+		callback.seekToEnd(assignments.keySet());
+	}
+
+	@KafkaListener(topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+			topic = TweetConstants.TWEET_EVENTS_TOPIC, partitions = "#{'0-' + (${tweets.kafka.partitions} - 1)}"),
+			containerFactory = "tweetStreamContainerFactory")
+	public void onMessages(List<ConsumerRecord<String, byte[]>> consumerRecords) {
+
+		if (tweetStream.getSubscriberCount() == 0) {
+			return;
+		}
+
+		List<TweetDoc> tweets = new ArrayList<>(consumerRecords.size());
+		for (ConsumerRecord<String, byte[]> consumerRecord : consumerRecords) {
+			try {
+				tweets.add(tweetEventCodec.decode(consumerRecord.value()));
+			} catch (IOException e) {
+				// TweetEventsConsumer accounts for it, the stream just leaves it out
+				log.debug("not streaming tweet event at {}-{}@{}", consumerRecord.topic(), consumerRecord.partition(),
+						consumerRecord.offset(), e);
+			}
+		}
+
+		// stream only what TweetEventsConsumer persists
+		tweets = tweetService.validTweets(tweets);
+
+		// stream the avatars the persisted tweets get
+		Set<String> handles = tweets.stream().map(TweetDoc::getHandle).collect(Collectors.toSet());
+		Map<String, UserDoc> authors = userProfiles.getAll(handles);
+		for (TweetDoc tweet : tweets) {
+			UserDoc author = authors.get(tweet.getHandle());
+			tweet.setAvatarUrl(author == null ? null : author.getAvatarUrl());
+		}
+
+		tweetStream.publish(tweets);
+	}
+}
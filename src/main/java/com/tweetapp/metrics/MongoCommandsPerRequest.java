@@ -0,0 +1,78 @@
+package com.tweetapp.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * counts the mongo commands sent while serving each request and records them
+ * per endpoint in tweets.mongo.commands.per.request, so endpoints doing n+1
+ * queries stand out. the sync driver runs the listener on the calling thread,
+ * commands of requests which went async are not attributed
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoCommandsPerRequest extends OncePerRequestFilter implements CommandListener {
+
+	// constants
+	private static final String METRIC_NAME = "tweets.mongo.commands.per.request";
+	private static final String UNKNOWN_URI = "UNKNOWN";
+
+	private static final ThreadLocal<long[]> COMMANDS = new ThreadLocal<>();
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Override
+	public void commandStarted(CommandStartedEvent event) {
+		long[] commands = COMMANDS.get();
+		if (commands != null) {
+			commands[0]++;
+		}
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		long[] commands = new long[1];
+		COMMANDS.set(commands);
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			COMMANDS.remove();
+
+			if (!request.isAsyncStarted()) {
+				record(request, commands[0]);
+			}
+		}
+	}
+
+	private void record(HttpServletRequest request, long commands) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+		DistributionSummary.builder(METRIC_NAME).description("mongo commands sent while serving one request")
+				.tag("uri", pattern == null ? UNKNOWN_URI : pattern.toString()).register(meterRegistry)
+				.record(commands);
+	}
+}
@@ -0,0 +1,23 @@
+package com.tweetapp.model;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * position of the last tweet returned in a timeline page, the next page starts
+ * strictly after it in (createdAt, id) order
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimelineCursor {
+
+	private Date createdAt;
+	private String id;
+}
@@ -0,0 +1,46 @@
+package com.tweetapp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tweetapp.document.TweetDoc;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * model to hold one page of a timeline along with the cursor for the next page
+ * (null when there are no more tweets)
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TweetPage {
+
+	private List<TweetDoc> tweets;
+	private TimelineCursor nextCursor;
+
+	/**
+	 * method to cut the over-fetched tweets down to one page and derive the next
+	 * cursor from its last tweet
+	 * 
+	 * @param tweets
+	 * @param pageSize
+	 * @return
+	 */
+	public static TweetPage of(List<TweetDoc> tweets, int pageSize) {
+
+		if (tweets.size() <= pageSize) {
+			return new TweetPage(tweets, null);
+		}
+
+		List<TweetDoc> page = new ArrayList<>(tweets.subList(0, pageSize));
+		TweetDoc last = page.get(pageSize - 1);
+
+		return new TweetPage(page, new TimelineCursor(last.getCreatedAt(), last.getId()));
+	}
+}
@@ -0,0 +1,402 @@
+package com.tweetapp.outbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * append-only log of the tweet events waiting for kafka, kept on local disk in
+ * fixed size memory-mapped segments named by their index. a record is
+ * [length][crc32][key length][key][value], the length is written last so a
+ * record torn by a crash fails its checksum and ends the log. the relay reads
+ * from its own position, the position acknowledged by kafka is checkpointed
+ * and the segments before it are deleted. writes reach the page cache, so they
+ * survive a crash of the process, and the disk only with forceOnAppend
+ *
+ * @author prateekpurohit
+ *
+ */
+public class OutboxLog implements Closeable {
+
+	// constants
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String CHECKPOINT = "relay.checkpoint";
+	private static final int HEADER_BYTES = 8;
+
+	private final Path dir;
+
+	private final int segmentBytes;
+
+	private final boolean forceOnAppend;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition appended = lock.newCondition();
+
+	// open segments by index, from the checkpointed one to the one written to
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+	private Segment active;
+
+	// next record handed to the relay
+	private Position readPosition;
+
+	// everything before it was acknowledged by kafka
+	private Position ackedPosition;
+
+	// records appended and not acknowledged yet
+	private volatile long pending;
+
+	public OutboxLog(Path dir, int segmentBytes, boolean forceOnAppend) throws IOException {
+		this.dir = dir;
+		this.segmentBytes = segmentBytes;
+		this.forceOnAppend = forceOnAppend;
+
+		Files.createDirectories(dir);
+		recover();
+	}
+
+	/**
+	 * method to append one event, it is handed to the relay as soon as this
+	 * returns
+	 *
+	 * @param key
+	 * @param value
+	 * @throws IOException
+	 */
+	public void append(String key, byte[] value) throws IOException {
+
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] payload = ByteBuffer.allocate(Integer.BYTES + keyBytes.length + value.length)
+				.putInt(keyBytes.length).put(keyBytes).put(value).array();
+
+		if (HEADER_BYTES + payload.length > segmentBytes) {
+			throw new IllegalArgumentException("outbox record of " + payload.length + " bytes exceeds the segment");
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		lock.lock();
+		try {
+			if (active.end + HEADER_BYTES + payload.length > segmentBytes) {
+				active = openSegment(active.index + 1);
+			}
+
+			int position = active.end;
+			active.buffer.put(position + HEADER_BYTES, payload);
+			active.buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+			active.buffer.putInt(position, payload.length);
+			active.end += HEADER_BYTES + payload.length;
+
+			if (forceOnAppend) {
+				active.buffer.force();
+			}
+
+			pending++;
+			appended.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method to read the next records for the relay, waits up to waitMs when
+	 * there are none
+	 *
+	 * @param max
+	 * @param waitMs
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public List<OutboxRecord> read(int max, long waitMs) throws InterruptedException {
+
+		lock.lock();
+		try {
+			if (!hasUnread()) {
+				appended.await(waitMs, TimeUnit.MILLISECONDS);
+			}
+
+			List<OutboxRecord> records = new ArrayList<>();
+			Position position = readPosition;
+
+			while (records.size() < max) {
+				Segment segment = segments.get(position.segment);
+
+				if (position.offset >= segment.end) {
+					if (segment == active) {
+						break;
+					}
+					position = new Position(position.segment + 1, 0);
+					continue;
+				}
+
+				int length = segment.buffer.getInt(position.offset);
+				ByteBuffer payload = ByteBuffer.wrap(new byte[length]);
+				segment.buffer.get(position.offset + HEADER_BYTES, payload.array());
+
+				byte[] key = new byte[payload.getInt()];
+				payload.get(key);
+				byte[] value = new byte[payload.remaining()];
+				payload.get(value);
+
+				position = new Position(position.segment, position.offset + HEADER_BYTES + length);
+				records.add(new OutboxRecord(new String(key, StandardCharsets.UTF_8), value, position));
+			}
+
+			readPosition = position;
+			return records;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method to acknowledge the records read so far up to the last one of the
+	 * batch, they are not handed out again even after a restart
+	 *
+	 * @param batch
+	 * @throws IOException
+	 */
+	public void acknowledge(List<OutboxRecord> batch) throws IOException {
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		Position position = batch.get(batch.size() - 1).getPosition();
+
+		lock.lock();
+		try {
+			writeCheckpoint(position);
+			ackedPosition = position;
+			pending -= batch.size();
+
+			// segments before the acknowledged one are fully relayed
+			while (segments.firstKey() < position.segment) {
+				Segment segment = segments.pollFirstEntry().getValue();
+				segment.channel.close();
+				Files.deleteIfExists(segment.path);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * method to hand the records after the last acknowledged one out again, after
+	 * a failed send
+	 */
+	public void rewind() {
+		lock.lock();
+		try {
+			readPosition = ackedPosition;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getPending() {
+		return pending;
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			for (Segment segment : segments.values()) {
+				segment.buffer.force();
+				segment.channel.close();
+			}
+			segments.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean hasUnread() {
+		return readPosition.segment < active.index || readPosition.offset < active.end;
+	}
+
+	/**
+	 * method to reopen the segments left by the last run, from the checkpoint on.
+	 * the end of every segment is found by scanning its records, a torn record at
+	 * the tail of the last one is zeroed so new records are appended over it
+	 *
+	 * @throws IOException
+	 */
+	private void recover() throws IOException {
+
+		Position checkpoint = readCheckpoint();
+
+		List<Path> files;
+		try (Stream<Path> paths = Files.list(dir)) {
+			files = paths.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted()
+					.collect(Collectors.toList());
+		}
+
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			long index = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+
+			if (index < checkpoint.segment) {
+				Files.delete(file);
+			} else {
+				openSegment(index);
+			}
+		}
+
+		if (segments.isEmpty()) {
+			openSegment(checkpoint.segment);
+		}
+
+		// the checkpointed segment is gone, start over at the oldest one left
+		if (segments.firstKey() != checkpoint.segment) {
+			checkpoint = new Position(segments.firstKey(), 0);
+		}
+
+		long records = 0;
+		for (Segment segment : segments.values()) {
+			segment.end = scan(segment);
+			records += count(segment, segment.index == checkpoint.segment ? checkpoint.offset : 0);
+		}
+
+		active = segments.lastEntry().getValue();
+		for (int i = active.end; i < segmentBytes; i++) {
+			if (active.buffer.get(i) != 0) {
+				active.buffer.put(i, (byte) 0);
+			}
+		}
+
+		ackedPosition = checkpoint;
+		readPosition = checkpoint;
+		pending = records;
+	}
+
+	/**
+	 * method to find the end of the valid records of a segment
+	 *
+	 * @param segment
+	 * @return
+	 */
+	private int scan(Segment segment) {
+
+		int position = 0;
+		CRC32 crc = new CRC32();
+
+		while (position + HEADER_BYTES <= segmentBytes) {
+			int length = segment.buffer.getInt(position);
+			if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+				break;
+			}
+
+			byte[] payload = new byte[length];
+			segment.buffer.get(position + HEADER_BYTES, payload);
+			crc.reset();
+			crc.update(payload);
+			if ((int) crc.getValue() != segment.buffer.getInt(position + Integer.BYTES)) {
+				break;
+			}
+
+			position += HEADER_BYTES + length;
+		}
+
+		return position;
+	}
+
+	private long count(Segment segment, int from) {
+		long records = 0;
+		for (int position = from; position < segment.end; position += HEADER_BYTES
+				+ segment.buffer.getInt(position)) {
+			records++;
+		}
+		return records;
+	}
+
+	private Segment openSegment(long index) throws IOException {
+		Path path = dir.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		// mapping past the end grows the file with zeroes
+		Segment segment = new Segment(index, path, channel, channel.map(MapMode.READ_WRITE, 0, segmentBytes));
+		segments.put(index, segment);
+		return segment;
+	}
+
+	private Position readCheckpoint() throws IOException {
+		Path checkpoint = dir.resolve(CHECKPOINT);
+		if (!Files.exists(checkpoint)) {
+			return new Position(0, 0);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+		return new Position(buffer.getLong(), buffer.getInt());
+	}
+
+	/**
+	 * the checkpoint is replaced atomically, a crash leaves the old or the new one
+	 *
+	 * @param position
+	 * @throws IOException
+	 */
+	private void writeCheckpoint(Position position) throws IOException {
+		Path temp = dir.resolve(CHECKPOINT + ".tmp");
+		Files.write(temp, ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(position.segment)
+				.putInt(position.offset).array());
+		Files.move(temp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * position of a record, the segment index and the byte offset in it
+	 */
+	static final class Position {
+		private final long segment;
+		private final int offset;
+
+		Position(long segment, int offset) {
+			this.segment = segment;
+			this.offset = offset;
+		}
+
+		@Override
+		public String toString() {
+			return segment + "@" + offset;
+		}
+	}
+
+	private static final class Segment {
+		private final long index;
+		private final Path path;
+		private final FileChannel channel;
+		private final MappedByteBuffer buffer;
+
+		// bytes of valid records
+		private int end;
+
+		Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+			this.index = index;
+			this.path = path;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+}
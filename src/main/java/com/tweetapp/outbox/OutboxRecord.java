@@ -0,0 +1,22 @@
+package com.tweetapp.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * one tweet event read back from the outbox, with the position right after it
+ * which is checkpointed once kafka acknowledged it
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class OutboxRecord {
+
+	private final String key;
+
+	private final byte[] value;
+
+	private final OutboxLog.Position position;
+}
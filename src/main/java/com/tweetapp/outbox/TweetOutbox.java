@@ -0,0 +1,171 @@
+package com.tweetapp.outbox;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.kafka.TweetEventProducer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * publishes new tweets through a local outbox: a post is appended to the
+ * memory-mapped outbox log and the request returns, a relay thread sends the
+ * log to tweet-events in batches and checkpoints it once kafka acknowledged
+ * them. a failed batch is sent again after a backoff and everything not
+ * acknowledged is sent again after a restart, so events are delivered at least
+ * once and the consumer drops redelivered tweets by their id
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class TweetOutbox {
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private TweetEventProducer tweetEventProducer;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private OutboxLog outboxLog;
+
+	private Thread relay;
+
+	private volatile boolean running;
+
+	private Counter relayedEvents;
+
+	private Counter failedBatches;
+
+	@PostConstruct
+	public void open() throws IOException {
+
+		TweetsProperties.Outbox settings = tweetsProperties.getOutbox();
+		if (!settings.isEnabled()) {
+			return;
+		}
+
+		outboxLog = new OutboxLog(Paths.get(settings.getDir()), settings.getSegmentBytes(),
+				settings.isForceOnAppend());
+
+		Gauge.builder("tweets.outbox.pending", outboxLog, OutboxLog::getPending)
+				.description("tweet events waiting in the outbox").register(meterRegistry);
+		relayedEvents = Counter.builder("tweets.outbox.relayed").description("tweet events acknowledged by kafka")
+				.register(meterRegistry);
+		failedBatches = Counter.builder("tweets.outbox.relay.failures").description("batches sent again")
+				.register(meterRegistry);
+
+		log.info("opened the tweet outbox in {} with {} pending events", settings.getDir(), outboxLog.getPending());
+
+		running = true;
+		relay = new Thread(this::relay, "tweet-outbox-relay");
+		relay.setDaemon(true);
+		relay.start();
+	}
+
+	/**
+	 * lets the relay finish its batch, whatever is left is sent on the next start
+	 */
+	@PreDestroy
+	public void close() throws IOException, InterruptedException {
+
+		if (outboxLog == null) {
+			return;
+		}
+
+		TweetsProperties.Outbox settings = tweetsProperties.getOutbox();
+		running = false;
+		relay.join(settings.getSendTimeoutMs() + settings.getIdleWaitMs());
+		outboxLog.close();
+	}
+
+	/**
+	 * method to publish a new tweet, sent directly to kafka when the outbox is
+	 * disabled
+	 * 
+	 * @param tweet
+	 * @throws IOException
+	 */
+	public void publish(TweetDoc tweet) throws IOException {
+
+		if (outboxLog == null) {
+			tweetEventProducer.sendTweetEvent(tweet);
+			return;
+		}
+
+		outboxLog.append(tweetEventProducer.eventKey(tweet), tweetEventProducer.eventValue(tweet));
+	}
+
+	private void relay() {
+
+		TweetsProperties.Outbox settings = tweetsProperties.getOutbox();
+
+		while (running) {
+			try {
+				List<OutboxRecord> batch = outboxLog.read(settings.getBatchSize(), settings.getIdleWaitMs());
+				if (!batch.isEmpty()) {
+					relayBatch(batch, settings);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * method to send one batch and wait for all of it to be acknowledged, the
+	 * idempotent producer keeps its retries from duplicating or reordering events
+	 * 
+	 * @param batch
+	 * @param settings
+	 * @throws InterruptedException
+	 */
+	private void relayBatch(List<OutboxRecord> batch, TweetsProperties.Outbox settings) throws InterruptedException {
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getSendTimeoutMs());
+
+		try {
+			List<ListenableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(batch.size());
+			for (OutboxRecord outboxRecord : batch) {
+				sends.add(tweetEventProducer.send(outboxRecord.getKey(), outboxRecord.getValue()));
+			}
+
+			for (ListenableFuture<SendResult<String, byte[]>> send : sends) {
+				send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+
+			outboxLog.acknowledge(batch);
+			relayedEvents.increment(batch.size());
+		} catch (ExecutionException | TimeoutException | IOException | RuntimeException e) {
+			failedBatches.increment();
+			log.error("relaying {} tweet events failed, sending them again in {} ms", batch.size(),
+					settings.getRetryBackoffMs(), e);
+
+			outboxLog.rewind();
+			Thread.sleep(settings.getRetryBackoffMs());
+		}
+	}
+}
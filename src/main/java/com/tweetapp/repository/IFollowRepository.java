@@ -0,0 +1,42 @@
+package com.tweetapp.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.tweetapp.document.FollowDoc;
+
+/**
+ * repository to perform db operations on the follow graph
+ * @author prateekpurohit
+ *
+ */
+@Repository
+public interface IFollowRepository extends MongoRepository<FollowDoc, String> {
+
+	/**
+	 * method to get the users followed by a user, only followee is loaded
+	 * @param follower
+	 * @return
+	 */
+	@Query(value = "{'follower': ?0}", fields = "{'followee': 1}")
+	public List<FollowDoc> findFolloweesOf(String follower);
+
+	/**
+	 * method to get the followers of a user, only follower is loaded
+	 * @param followee
+	 * @return
+	 */
+	@Query(value = "{'followee': ?0}", fields = "{'follower': 1}")
+	public List<FollowDoc> findFollowersOf(String followee);
+
+	/**
+	 * method to remove a follow edge
+	 * @param follower
+	 * @param followee
+	 * @return number of edges removed
+	 */
+	public long deleteByFollowerAndFollowee(String follower, String followee);
+}
@@ -0,0 +1,35 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.model.TimelineCursor;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * non-blocking tweet queries for the reactive profile, same keyset pagination
+ * as ITweetRepositoryCustom
+ * 
+ * @author prateekpurohit
+ *
+ */
+public interface IReactiveTweetRepository {
+
+	/**
+	 * method to stream one page of the timeline (replies excluded), newest first
+	 * 
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit
+	 * @return
+	 */
+	public Flux<TweetDoc> findTimeline(TimelineCursor before, int limit);
+
+	/**
+	 * method to stream one page of the tweets of a user, newest first
+	 * 
+	 * @param handle
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit
+	 * @return
+	 */
+	public Flux<TweetDoc> findUserTimeline(String handle, TimelineCursor before, int limit);
+}
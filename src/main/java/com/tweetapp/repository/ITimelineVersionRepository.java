@@ -0,0 +1,16 @@
+package com.tweetapp.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.tweetapp.document.TimelineVersionDoc;
+
+/**
+ * repository to perform db operations on the timeline versions
+ * @author prateekpurohit
+ *
+ */
+@Repository
+public interface ITimelineVersionRepository
+		extends MongoRepository<TimelineVersionDoc, String>, ITimelineVersionRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package com.tweetapp.repository;
+
+import java.util.Collection;
+
+/**
+ * timeline version writes which need the mongo template, implemented in
+ * ITimelineVersionRepositoryCustomImpl
+ * 
+ * @author prateekpurohit
+ *
+ */
+public interface ITimelineVersionRepositoryCustom {
+
+	/**
+	 * method to increment the versions of several timelines with one unordered
+	 * bulk of upserts, nothing is read
+	 * 
+	 * @param ids
+	 */
+	public void bump(Collection<String> ids);
+}
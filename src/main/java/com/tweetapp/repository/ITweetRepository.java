@@ -14,7 +14,7 @@ import com.tweetapp.document.TweetDoc;
  *
  */
 @Repository
-public interface ITweetRepository extends MongoRepository<TweetDoc, String> {
+public interface ITweetRepository extends MongoRepository<TweetDoc, String>, ITweetRepositoryCustom {
 	
 	/**
 	 * method to retrieve all tweets by a username aka handle
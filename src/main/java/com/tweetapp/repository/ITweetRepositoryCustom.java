@@ -0,0 +1,122 @@
+package com.tweetapp.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.util.CloseableIterator;
+
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.model.TimelineCursor;
+
+/**
+ * tweet queries which cannot be expressed as derived repository methods
+ * 
+ * @author prateekpurohit
+ *
+ */
+public interface ITweetRepositoryCustom {
+
+	/**
+	 * method to get a page of top level tweets, newest first, starting after the
+	 * given cursor
+	 * 
+	 * @param before cursor of the last tweet already seen, null for the first page
+	 * @param limit
+	 * @return
+	 */
+	public List<TweetDoc> findTimeline(TimelineCursor before, int limit);
+
+	/**
+	 * method to get a page of the tweets posted by a user, newest first,
+	 * starting after the given cursor
+	 * 
+	 * @param handle
+	 * @param before cursor of the last tweet already seen, null for the first page
+	 * @param limit
+	 * @return
+	 */
+	public List<TweetDoc> findUserTimeline(String handle, TimelineCursor before, int limit);
+
+	/**
+	 * method to iterate over all the tweets posted by a user, newest first, on an
+	 * open mongo cursor fetching batchSize documents per round trip. the caller
+	 * has to close it
+	 * 
+	 * @param handle
+	 * @param batchSize
+	 * @return
+	 */
+	public CloseableIterator<TweetDoc> streamUserTimeline(String handle, int batchSize);
+
+	/**
+	 * method to get a page of the tweets (not replies) posted by any of the given
+	 * users, newest first, starting after the given cursor
+	 * 
+	 * @param handles
+	 * @param before cursor of the last tweet already seen, null for the first page
+	 * @param limit
+	 * @return
+	 */
+	public List<TweetDoc> findByHandles(Collection<String> handles, TimelineCursor before, int limit);
+
+	/**
+	 * method to get a page of the replies to a tweet, oldest first, starting
+	 * after the given cursor
+	 * 
+	 * @param parentId
+	 * @param after cursor of the last reply already seen, null for the first page
+	 * @param limit
+	 * @return
+	 */
+	public List<TweetDoc> findReplies(String parentId, TimelineCursor after, int limit);
+
+	/**
+	 * method to atomically add to the likes of a tweet, tweets posted by the
+	 * liking user are not matched
+	 * 
+	 * @param id
+	 * @param likedBy handle of the user liking the tweet
+	 * @param delta
+	 * @return handle of the user who posted the tweet, null if the tweet does not
+	 *         exist or belongs to likedBy
+	 */
+	public String incrementLikes(String id, String likedBy, long delta);
+
+	/**
+	 * method to atomically add to the reply count of a tweet
+	 * 
+	 * @param id
+	 * @param delta
+	 * @return handle of the user who posted the tweet, null if it does not exist
+	 */
+	public String incrementReplyCount(String id, long delta);
+
+	/**
+	 * method to replace the message of a tweet, the counters are left untouched
+	 * 
+	 * @param id
+	 * @param handle handle of the user who posted the tweet
+	 * @param message
+	 * @return number of tweets updated, 0 if the tweet does not exist or belongs
+	 *         to another user
+	 */
+	public long updateMessage(String id, String handle, String message);
+
+	/**
+	 * method to apply coalesced likes to several tweets in one bulk write
+	 * 
+	 * @param deltas likes to add keyed by tweet id
+	 */
+	public void bulkIncrementLikes(Map<String, Long> deltas);
+
+	/**
+	 * method to insert new tweets with one unordered insertMany, tweets whose id
+	 * is already saved are skipped
+	 * 
+	 * @param tweets
+	 * @return ids of the skipped tweets
+	 */
+	public Set<String> insertAllUnordered(List<TweetDoc> tweets);
+}
@@ -1,8 +1,11 @@
 package com.tweetapp.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.tweetapp.document.UserDoc;
@@ -13,7 +16,7 @@ import com.tweetapp.document.UserDoc;
  *
  */
 @Repository
-public interface IUserRepository extends MongoRepository<UserDoc, String>  {
+public interface IUserRepository extends MongoRepository<UserDoc, String>, IUserRepositoryCustom {
 
 	/**
 	 * method to get user by username
@@ -23,9 +26,48 @@ public interface IUserRepository extends MongoRepository<UserDoc, String>  {
 	public UserDoc findByUsername(String username);
 
 	/**
-	 * method to get users by username( partial username)
+	 * method to get users whose lower cased username falls in [from, to), a range
+	 * scan on the usernameLower index
+	 * @param from lower cased prefix
+	 * @param to first value past the prefix
+	 * @param page limit and sort of the result
+	 * @return
+	 */
+	@Query(value = "{'usernameLower': {$gte: ?0, $lt: ?1}}", fields = "{'username': 1, 'firstName': 1, 'lastName': 1}")
+	public List<UserDoc> findByUsernameRange(String from, String to, Pageable page);
+
+	/**
+	 * method to get the names of all users, used to build the in-memory username
+	 * index
+	 * @return
+	 */
+	@Query(value = "{}", fields = "{'username': 1, 'firstName': 1, 'lastName': 1}")
+	public List<UserDoc> findAllNames();
+
+	/**
+	 * method to get which of the given users have more than the given number of
+	 * followers, only username is loaded
+	 * @param usernames
+	 * @param followers
+	 * @return
+	 */
+	@Query(value = "{'username': {$in: ?0}, 'followersCount': {$gt: ?1}}", fields = "{'username': 1}")
+	public List<UserDoc> findHeavyByUsernameIn(Collection<String> usernames, long followers);
+
+	/**
+	 * method to get the profile of a user, the password is not loaded
 	 * @param username
 	 * @return
 	 */
-	public List<UserDoc> findByUsernameLike(String username);
+	@Query(value = "{'username': ?0}", fields = "{'password': 0}")
+	public UserDoc findProfileByUsername(String username);
+
+	/**
+	 * method to get the profiles of several users in one query, the password is
+	 * not loaded
+	 * @param usernames
+	 * @return
+	 */
+	@Query(value = "{'username': {$in: ?0}}", fields = "{'password': 0}")
+	public List<UserDoc> findProfilesByUsernameIn(Collection<String> usernames);
 }
@@ -0,0 +1,21 @@
+package com.tweetapp.repository;
+
+/**
+ * user queries which need the mongo template, implemented in
+ * IUserRepositoryCustomImpl
+ * 
+ * @author prateekpurohit
+ *
+ */
+public interface IUserRepositoryCustom {
+
+	/**
+	 * method to atomically add to the following count of the follower and the
+	 * followers count of the followee
+	 * 
+	 * @param follower
+	 * @param followee
+	 * @param delta
+	 */
+	public void incrementFollowCounts(String follower, String followee, long delta);
+}
@@ -0,0 +1,52 @@
+package com.tweetapp.repository.impl;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TimelineVersionDoc;
+import com.tweetapp.repository.ITimelineVersionRepositoryCustom;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * mongo template backed implementation of the timeline version writes, picked
+ * up by spring data as a fragment of ITimelineVersionRepository
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class ITimelineVersionRepositoryCustomImpl implements ITimelineVersionRepositoryCustom {
+
+	// constants
+	private static final String ID = "_id";
+	private static final String VERSION = "version";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * $inc with upsert, a timeline written for the first time starts at 1
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public void bump(Collection<String> ids) {
+
+		if (ids.isEmpty()) {
+			return;
+		}
+
+		BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, TimelineVersionDoc.class);
+
+		ids.forEach(id -> operations.upsert(Query.query(Criteria.where(ID).is(id)), new Update().inc(VERSION, 1)));
+
+		operations.execute();
+	}
+}
@@ -0,0 +1,194 @@
+package com.tweetapp.repository.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.repository.ITweetRepositoryCustom;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * mongo template backed implementation of the custom tweet queries, picked up
+ * by spring data as a fragment of ITweetRepository
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class ITweetRepositoryCustomImpl implements ITweetRepositoryCustom {
+
+	// constants
+	private static final String ID = TweetQueries.ID;
+	private static final String IS_REPLY = TweetQueries.IS_REPLY;
+	private static final String HANDLE = TweetQueries.HANDLE;
+	private static final String LIKES = "likesOnTweet";
+	private static final String MESSAGE = "message";
+	private static final String PARENT_ID = TweetQueries.PARENT_ID;
+	private static final String REPLY_COUNT = "replyCount";
+	private static final int DUPLICATE_KEY = 11000;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * keyset pagination over the timeline_idx index, the cursor condition keeps
+	 * every page a bounded range scan regardless of how deep the client pages
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public List<TweetDoc> findTimeline(TimelineCursor before, int limit) {
+		return findPage(Criteria.where(IS_REPLY).is(false), before, Direction.DESC, limit);
+	}
+
+	/**
+	 * keyset pagination over the user_timeline_idx index
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public List<TweetDoc> findUserTimeline(String handle, TimelineCursor before, int limit) {
+		return findPage(Criteria.where(HANDLE).is(handle), before, Direction.DESC, limit);
+	}
+
+	/**
+	 * walks the user_timeline_idx index in order, only one cursor batch is held
+	 * in memory at a time
+	 */
+	@Override
+	public CloseableIterator<TweetDoc> streamUserTimeline(String handle, int batchSize) {
+
+		// a limit of 0 reads the whole timeline
+		Query query = TweetQueries.page(Criteria.where(HANDLE).is(handle), null, Direction.DESC, 0)
+				.cursorBatchSize(batchSize);
+
+		return mongoTemplate.stream(query, TweetDoc.class);
+	}
+
+	/**
+	 * keyset pagination over the user_timeline_idx index, mongo merges the sorted
+	 * index ranges of the handles
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public List<TweetDoc> findByHandles(Collection<String> handles, TimelineCursor before, int limit) {
+		return findPage(Criteria.where(HANDLE).in(handles).and(IS_REPLY).is(false), before, Direction.DESC, limit);
+	}
+
+	/**
+	 * keyset pagination over the replies_idx index, oldest reply first
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public List<TweetDoc> findReplies(String parentId, TimelineCursor after, int limit) {
+		return findPage(Criteria.where(PARENT_ID).is(parentId), after, Direction.ASC, limit);
+	}
+
+	/**
+	 * single $inc on the likes field, concurrent likes never overwrite each other
+	 * and the rest of the document is left untouched. run as a findAndModify
+	 * projected on the handle, so the author comes back in the same round trip
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public String incrementLikes(String id, String likedBy, long delta) {
+
+		Query query = Query.query(Criteria.where(ID).is(id).and(HANDLE).ne(likedBy));
+
+		return incrementReturningHandle(query, new Update().inc(LIKES, delta));
+	}
+
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public String incrementReplyCount(String id, long delta) {
+
+		Query query = Query.query(Criteria.where(ID).is(id));
+
+		return incrementReturningHandle(query, new Update().inc(REPLY_COUNT, delta));
+	}
+
+	/**
+	 * single $set on the message, likes and replies counted meanwhile are kept
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public long updateMessage(String id, String handle, String message) {
+
+		Query query = Query.query(Criteria.where(ID).is(id).and(HANDLE).is(handle));
+
+		return mongoTemplate.updateFirst(query, Update.update(MESSAGE, message), TweetDoc.class).getMatchedCount();
+	}
+
+	/**
+	 * unordered bulk so one missing (deleted) tweet does not hold back the others
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public void bulkIncrementLikes(Map<String, Long> deltas) {
+
+		BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, TweetDoc.class);
+
+		deltas.forEach((id, delta) -> operations.updateOne(Query.query(Criteria.where(ID).is(id)),
+				new Update().inc(LIKES, delta)));
+
+		operations.execute();
+	}
+
+	/**
+	 * the unordered insert goes on past duplicates, they are reported back by
+	 * their index in the batch
+	 */
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public Set<String> insertAllUnordered(List<TweetDoc> tweets) {
+		try {
+			mongoTemplate.bulkOps(BulkMode.UNORDERED, TweetDoc.class).insert(tweets).execute();
+			return Collections.emptySet();
+		} catch (BulkOperationException e) {
+			Set<String> duplicates = new HashSet<>();
+			for (BulkWriteError error : e.getErrors()) {
+				if (error.getCode() != DUPLICATE_KEY) {
+					throw e;
+				}
+				duplicates.add(tweets.get(error.getIndex()).getId());
+			}
+			return duplicates;
+		}
+	}
+
+	private String incrementReturningHandle(Query query, Update update) {
+		query.fields().include(HANDLE);
+
+		TweetDoc tweet = mongoTemplate.findAndModify(query, update, TweetDoc.class);
+		return tweet == null ? null : tweet.getHandle();
+	}
+
+	/**
+	 * method to run one page query of the shared tweet queries
+	 * 
+	 * @param criteria
+	 * @param cursor
+	 * @param direction
+	 * @param limit
+	 * @return
+	 */
+	private List<TweetDoc> findPage(Criteria criteria, TimelineCursor cursor, Direction direction, int limit) {
+		return mongoTemplate.find(TweetQueries.page(criteria, cursor, direction, limit), TweetDoc.class);
+	}
+}
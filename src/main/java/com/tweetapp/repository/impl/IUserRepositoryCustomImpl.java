@@ -0,0 +1,40 @@
+package com.tweetapp.repository.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.repository.IUserRepositoryCustom;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * mongo template backed implementation of the custom user queries, picked up
+ * by spring data as a fragment of IUserRepository
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class IUserRepositoryCustomImpl implements IUserRepositoryCustom {
+
+	// constants
+	private static final String USERNAME = "username";
+	private static final String FOLLOWERS = "followersCount";
+	private static final String FOLLOWING = "followingCount";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Override
+	@Timed(TweetConstants.REPOSITORY_TIMER)
+	public void incrementFollowCounts(String follower, String followee, long delta) {
+		mongoTemplate.updateFirst(Query.query(Criteria.where(USERNAME).is(follower)),
+				new Update().inc(FOLLOWING, delta), UserDoc.class);
+		mongoTemplate.updateFirst(Query.query(Criteria.where(USERNAME).is(followee)),
+				new Update().inc(FOLLOWERS, delta), UserDoc.class);
+	}
+}
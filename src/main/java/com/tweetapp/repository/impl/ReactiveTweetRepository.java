@@ -0,0 +1,51 @@
+package com.tweetapp.repository.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.repository.IReactiveTweetRepository;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * reactive mongo template backed implementation of the tweet queries, only
+ * created with the reactive profile
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveTweetRepository implements IReactiveTweetRepository {
+
+	@Autowired
+	private ReactiveMongoTemplate reactiveMongoTemplate;
+
+	@Override
+	public Flux<TweetDoc> findTimeline(TimelineCursor before, int limit) {
+		return findPage(Criteria.where(TweetQueries.IS_REPLY).is(false), before, limit);
+	}
+
+	@Override
+	public Flux<TweetDoc> findUserTimeline(String handle, TimelineCursor before, int limit) {
+		return findPage(Criteria.where(TweetQueries.HANDLE).is(handle), before, limit);
+	}
+
+	/**
+	 * method to run one page query of the shared tweet queries, newest first
+	 * 
+	 * @param criteria
+	 * @param before
+	 * @param limit
+	 * @return
+	 */
+	private Flux<TweetDoc> findPage(Criteria criteria, TimelineCursor before, int limit) {
+		return reactiveMongoTemplate.find(TweetQueries.page(criteria, before, Direction.DESC, limit), TweetDoc.class);
+	}
+}
@@ -0,0 +1,67 @@
+package com.tweetapp.repository.impl;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.tweetapp.model.TimelineCursor;
+
+/**
+ * tweet queries shared by the blocking and the reactive repositories so both
+ * stacks page over the same indexes in the same order
+ * 
+ * @author prateekpurohit
+ *
+ */
+final class TweetQueries {
+
+	// constants
+	static final String ID = "id";
+	static final String CREATED_AT = "createdAt";
+	static final String IS_REPLY = "isReply";
+	static final String HANDLE = "handle";
+	static final String PARENT_ID = "parentId";
+
+	private TweetQueries() {
+	}
+
+	/**
+	 * method to build the query for one page of tweets ordered by (createdAt,
+	 * id), starting right after the cursor
+	 * 
+	 * @param criteria
+	 * @param cursor
+	 * @param direction
+	 * @param limit
+	 * @return
+	 */
+	static Query page(Criteria criteria, TimelineCursor cursor, Direction direction, int limit) {
+
+		if (cursor != null) {
+			criteria = criteria.andOperator(afterCursor(cursor, direction));
+		}
+
+		return Query.query(criteria).with(Sort.by(direction, CREATED_AT, ID)).limit(limit);
+	}
+
+	/**
+	 * criteria matching tweets which sort after the cursor in the given order
+	 * 
+	 * @param cursor
+	 * @param direction
+	 * @return
+	 */
+	private static Criteria afterCursor(TimelineCursor cursor, Direction direction) {
+		ObjectId id = new ObjectId(cursor.getId());
+
+		if (direction == Direction.DESC) {
+			return new Criteria().orOperator(Criteria.where(CREATED_AT).lt(cursor.getCreatedAt()),
+					Criteria.where(CREATED_AT).is(cursor.getCreatedAt()).and(ID).lt(id));
+		}
+
+		return new Criteria().orOperator(Criteria.where(CREATED_AT).gt(cursor.getCreatedAt()),
+				Criteria.where(CREATED_AT).is(cursor.getCreatedAt()).and(ID).gt(id));
+	}
+}
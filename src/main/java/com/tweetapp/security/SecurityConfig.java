@@ -11,6 +11,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 
+import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.security.filter.JwtValidationFilter;
 
 /**
@@ -31,7 +32,7 @@ public class SecurityConfig {
 						config.setAllowedMethods(Collections.singletonList("*"));
 						config.setAllowCredentials(true);
 						config.setAllowedHeaders(Collections.singletonList("*"));
-						config.setExposedHeaders(Arrays.asList("Authorization"));
+						config.setExposedHeaders(Arrays.asList("Authorization", TweetConstants.NEXT_CURSOR_HEADER));
 						config.setMaxAge(3600L);
 						return config;
 				})
@@ -0,0 +1,46 @@
+package com.tweetapp.service;
+
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * non-blocking variant of the tweet read / write services, errors are
+ * signalled with the same exceptions as ITweetService
+ * 
+ * @author prateekpurohit
+ *
+ */
+public interface IReactiveTweetService {
+
+	/**
+	 * service to get a page of all tweets, newest first. errors with
+	 * NoTweetsFoundException when there are no tweets at all
+	 * 
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit page size, null for the configured default
+	 * @return
+	 */
+	public Mono<TweetPage> getAllTweets(TimelineCursor before, Integer limit);
+
+	/**
+	 * service to get a page of the tweets of a particular username, newest first.
+	 * errors with NoTweetsFoundException when the user has no tweets
+	 * 
+	 * @param username
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit page size, null for the configured default
+	 * @return
+	 */
+	public Mono<TweetPage> getTweetsByUsername(String username, TimelineCursor before, Integer limit);
+
+	/**
+	 * service to publish a new tweet, completes once the event is in the outbox
+	 * 
+	 * @param tweet
+	 * @return
+	 */
+	public Mono<Void> postTweet(TweetDoc tweet);
+}
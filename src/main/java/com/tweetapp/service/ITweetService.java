@@ -1,5 +1,7 @@
 package com.tweetapp.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import com.tweetapp.document.TweetDoc;
@@ -7,6 +9,8 @@ import com.tweetapp.exception.InvalidTokenException;
 import com.tweetapp.exception.InvalidTweetException;
 import com.tweetapp.exception.InvalidUserException;
 import com.tweetapp.exception.NoTweetsFoundException;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
 
 /**
  * service to handle CRUD operations on tweet
@@ -17,15 +21,28 @@ import com.tweetapp.exception.NoTweetsFoundException;
 public interface ITweetService {
 
 	/**
-	 * story task-2 service to get all tweets for a particular username
+	 * story task-2 service to get a page of the tweets of a particular username,
+	 * newest first
 	 * 
 	 * @param username
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit page size, null for the configured default
 	 * @return
 	 * @throws InvalidTokenException
 	 */
-	public List<TweetDoc> getTweetsByUsername(String username)
+	public TweetPage getTweetsByUsername(String username, TimelineCursor before, Integer limit)
 			throws NoTweetsFoundException, InvalidTokenException;
 
+	/**
+	 * service to write all the tweets of a particular username, newest first, as
+	 * a json array to the stream without loading them all at once
+	 * 
+	 * @param username
+	 * @param out
+	 * @throws IOException
+	 */
+	public void exportTweetsByUsername(String username, OutputStream out) throws IOException;
+
 	/**
 	 * service to post tweet for a particular username
 	 * 
@@ -35,13 +52,55 @@ public interface ITweetService {
 	public void addTweet(TweetDoc tweet) throws InvalidTweetException;
 
 	/**
-	 * task-2 method to get all tweets
+	 * service to persist a batch of tweets in one write, tweets exceeding the
+	 * length limit are skipped
+	 * 
+	 * @param tweets
+	 */
+	public void addTweets(List<TweetDoc> tweets);
+
+	/**
+	 * service to pick the tweets of a consumed batch which addTweets persists,
+	 * tweets without a message or exceeding the length limit are left out
+	 * 
+	 * @param tweets
+	 * @return
+	 */
+	public List<TweetDoc> validTweets(List<TweetDoc> tweets);
+
+	/**
+	 * task-2 method to get a page of all tweets, newest first
 	 * 
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit page size, null for the configured default
 	 * @return
 	 * @throws InvalidTokenException
 	 * @throws NoTweetsFoundException 
 	 */
-	public List<TweetDoc> getAllTweets() throws InvalidTokenException, NoTweetsFoundException;
+	public TweetPage getAllTweets(TimelineCursor before, Integer limit)
+			throws InvalidTokenException, NoTweetsFoundException;
+
+	/**
+	 * method to get a page of the home timeline of a user: their own tweets and
+	 * the tweets of the users they follow, newest first
+	 * 
+	 * @param username
+	 * @param before cursor of the last tweet on the previous page, null for the first page
+	 * @param limit page size, null for the configured default
+	 * @return
+	 */
+	public TweetPage getHomeTimeline(String username, TimelineCursor before, Integer limit);
+
+	/**
+	 * method to get a page of the replies to a tweet, oldest first
+	 * 
+	 * @param id
+	 * @param after cursor of the last reply on the previous page, null for the first page
+	 * @param limit page size, null for the configured default
+	 * @return
+	 * @throws NoTweetsFoundException
+	 */
+	public TweetPage getReplies(String id, TimelineCursor after, Integer limit) throws NoTweetsFoundException;
 
 	/**
 	 * method to delete tweet by id
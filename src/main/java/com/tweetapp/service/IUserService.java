@@ -39,6 +39,29 @@ public interface IUserService extends UserDetailsService {
 	 */
 	public void forgetPasswordUser(String username, String password, String token) throws InvalidTokenException;
 
+	/**
+	 * method to follow another user, following a user twice has no effect
+	 * 
+	 * @param username
+	 * @param followee
+	 * @param token
+	 * @throws InvalidTokenException
+	 * @throws InvalidUserException
+	 * @throws NoUsersFoundException
+	 */
+	public void followUser(String username, String followee, String token)
+			throws InvalidTokenException, InvalidUserException, NoUsersFoundException;
+
+	/**
+	 * method to stop following a user
+	 * 
+	 * @param username
+	 * @param followee
+	 * @param token
+	 * @throws InvalidTokenException
+	 */
+	public void unfollowUser(String username, String followee, String token) throws InvalidTokenException;
+
 	/**
 	 * task-1
 	 * method to get all users
@@ -49,7 +72,7 @@ public interface IUserService extends UserDetailsService {
 	
 	/**
 	 * task-1
-	 * method to get users by username
+	 * method to get users whose username starts with the given prefix, ignoring case
 	 * @param username
 	 * @return
 	 * @throws NoUsersFoundException
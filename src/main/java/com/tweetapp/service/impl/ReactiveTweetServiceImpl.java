@@ -0,0 +1,95 @@
+package com.tweetapp.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.exception.NoTweetsFoundException;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
+import com.tweetapp.outbox.TweetOutbox;
+import com.tweetapp.repository.IReactiveTweetRepository;
+import com.tweetapp.service.IReactiveTweetService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * reactive implementation of the tweet read / write services, no request
+ * thread is held while mongo or kafka are working
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Service
+@Profile("reactive")
+public class ReactiveTweetServiceImpl implements IReactiveTweetService {
+
+	@Autowired
+	private IReactiveTweetRepository reactiveTweetRepository;
+
+	@Autowired
+	private TweetOutbox tweetOutbox;
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Override
+	public Mono<TweetPage> getAllTweets(TimelineCursor before, Integer limit) {
+
+		int pageSize = tweetsProperties.getTimeline().resolvePageSize(limit);
+
+		// fetch one extra tweet to know whether there is a next page
+		return toPage(reactiveTweetRepository.findTimeline(before, pageSize + 1), before, pageSize);
+	}
+
+	@Override
+	public Mono<TweetPage> getTweetsByUsername(String username, TimelineCursor before, Integer limit) {
+
+		int pageSize = tweetsProperties.getTimeline().resolvePageSize(limit);
+
+		return toPage(reactiveTweetRepository.findUserTimeline(username, before, pageSize + 1), before, pageSize);
+	}
+
+	/**
+	 * published through the local outbox like the blocking endpoint. the append
+	 * may force the segment to disk, so it runs on the bounded elastic scheduler
+	 */
+	@Override
+	public Mono<Void> postTweet(TweetDoc tweet) {
+		return Mono.fromRunnable(() -> {
+			try {
+				tweetOutbox.publish(tweet);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).subscribeOn(Schedulers.boundedElastic()).then();
+	}
+
+	/**
+	 * method to collect the over-fetched tweets into one page, only the first page
+	 * being empty means there are no tweets at all
+	 * 
+	 * @param tweets
+	 * @param before
+	 * @param pageSize
+	 * @return
+	 */
+	private Mono<TweetPage> toPage(Flux<TweetDoc> tweets, TimelineCursor before, int pageSize) {
+		return tweets.collectList().flatMap(list -> {
+
+			if (list.isEmpty() && before == null) {
+				return Mono.error(new NoTweetsFoundException(TweetConstants.TWEETS_NOT_FOUND_MESSAGE));
+			}
+
+			return Mono.just(TweetPage.of(list, pageSize));
+		});
+	}
+}
@@ -1,31 +1,59 @@
 package com.tweetapp.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
+import com.tweetapp.cache.HomeTimeline;
+import com.tweetapp.cache.HomeTimelineCache;
+import com.tweetapp.cache.LikeWriteBehindBuffer;
+import com.tweetapp.cache.TimelineVersions;
+import com.tweetapp.cache.TweetCache;
+import com.tweetapp.cache.UserProfileCache;
+import com.tweetapp.config.TweetsProperties;
 import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.FollowDoc;
 import com.tweetapp.document.TweetDoc;
 import com.tweetapp.document.UserDoc;
 import com.tweetapp.exception.InvalidTokenException;
 import com.tweetapp.exception.InvalidTweetException;
 import com.tweetapp.exception.InvalidUserException;
 import com.tweetapp.exception.NoTweetsFoundException;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
+import com.tweetapp.repository.IFollowRepository;
 import com.tweetapp.repository.ITweetRepository;
 import com.tweetapp.repository.IUserRepository;
 import com.tweetapp.service.ITweetService;
+import com.tweetapp.util.JsonViewUtil;
 import com.tweetapp.util.JwtUtil;
 
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * service class to handle tweet related operations
  * 
  * @author prateekpurohit
  *
  */
+@Slf4j
 @Service
 public class TweetServiceImpl implements ITweetService {
 
@@ -38,22 +66,67 @@ public class TweetServiceImpl implements ITweetService {
 	@Autowired
 	private IUserRepository userRepository;
 
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private LikeWriteBehindBuffer likeBuffer;
+
+	@Autowired
+	private IFollowRepository followRepository;
+
+	@Autowired
+	private HomeTimelineCache homeTimelines;
+
+	@Autowired
+	private TweetCache tweetCache;
+
+	@Autowired
+	private UserProfileCache userProfiles;
+
+	@Autowired
+	private TimelineVersions timelineVersions;
+
+	@Autowired
+	private JsonViewUtil jsonViewUtil;
+
 	/**
-	 * method to retrieve all tweets by username
+	 * method to retrieve a page of tweets by username
 	 * 
 	 * @throws NoTweetsFoundException
 	 * @throws InvalidTokenException
 	 */
 	@Override
-	public List<TweetDoc> getTweetsByUsername(String username) throws NoTweetsFoundException, InvalidTokenException {
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public TweetPage getTweetsByUsername(String username, TimelineCursor before, Integer limit)
+			throws NoTweetsFoundException, InvalidTokenException {
+
+		int pageSize = tweetsProperties.getTimeline().resolvePageSize(limit);
 
-		List<TweetDoc> tweets = tweetRepository.findByHandle(username);
+		List<TweetDoc> tweets = tweetRepository.findUserTimeline(username, before, pageSize + 1);
 
-		if (tweets.isEmpty()) {
+		if (tweets.isEmpty() && before == null) {
 			throw new NoTweetsFoundException(TweetConstants.TWEETS_NOT_FOUND_MESSAGE);
 		}
 
-		return tweets;
+		return TweetPage.of(tweets, pageSize);
+	}
+
+	/**
+	 * method to stream the tweets of a username from a mongo cursor straight into
+	 * the response, one cursor batch at a time
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public void exportTweetsByUsername(String username, OutputStream out) throws IOException {
+
+		int batchSize = tweetsProperties.getExport().getBatchSize();
+
+		try (CloseableIterator<TweetDoc> tweets = tweetRepository.streamUserTimeline(username, batchSize)) {
+			jsonViewUtil.writeTimeline(tweets, out, batchSize);
+		}
 	}
 
 	/**
@@ -62,32 +135,252 @@ public class TweetServiceImpl implements ITweetService {
 	 * @throws InvalidTweetException
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void addTweet(TweetDoc tweet) throws InvalidTweetException {
 
 		if (tweet.getMessage().length() > 144) {
 			throw new InvalidTweetException(TweetConstants.TWEET_LIMIT_EXCEED);
 		}
-		UserDoc userDoc = userRepository.findByUsername(tweet.getHandle());
+		UserDoc userDoc = userProfiles.get(tweet.getHandle());
 		tweet.setAvatarUrl(userDoc == null ? null : userDoc.getAvatarUrl());
 		tweetRepository.save(tweet);
+		timelineVersions.bump(tweet.getHandle());
 	}
 
 	/**
-	 * task-2 method to get all tweets
+	 * method to persist a batch of tweets consumed from kafka
+	 */
+	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public void addTweets(List<TweetDoc> tweets) {
+
+		List<TweetDoc> validTweets = validTweets(tweets);
+		if (validTweets.size() < tweets.size()) {
+			log.warn("skipping {} invalid tweets", tweets.size() - validTweets.size());
+		}
+
+		if (validTweets.isEmpty()) {
+			return;
+		}
+
+		// resolve the authors in the batch, cache misses with one query
+		Set<String> handles = validTweets.stream().map(TweetDoc::getHandle).collect(Collectors.toSet());
+		Map<String, UserDoc> authors = userProfiles.getAll(handles);
+
+		for (TweetDoc tweet : validTweets) {
+			UserDoc author = authors.get(tweet.getHandle());
+			tweet.setAvatarUrl(author == null ? null : author.getAvatarUrl());
+
+			// bulk inserts do not report generated ids back, assign them upfront
+			if (tweet.getId() == null) {
+				tweet.setId(new ObjectId().toHexString());
+			}
+		}
+
+		// events are delivered at least once, a redelivered tweet is already saved
+		Set<String> duplicates = tweetRepository.insertAllUnordered(validTweets);
+
+		// bumped for the redelivered tweets too, their first delivery may have failed
+		// between the insert and the bump
+		timelineVersions.bumpAll(handles);
+
+		if (!duplicates.isEmpty()) {
+			log.info("skipping {} redelivered tweets", duplicates.size());
+			validTweets.removeIf(tweet -> duplicates.contains(tweet.getId()));
+		}
+
+		fanOut(validTweets, authors);
+	}
+
+	/**
+	 * method to pick the tweets of a consumed batch which are persisted, shared
+	 * with the live stream so it never shows a tweet the timeline will not have
+	 */
+	@Override
+	public List<TweetDoc> validTweets(List<TweetDoc> tweets) {
+
+		return tweets.stream().filter(tweet -> tweet.getMessage() != null && tweet.getMessage().length() <= 144)
+				.collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	/**
+	 * method to push new tweets into the cached home timelines of the followers
+	 * of their authors. tweets of heavy accounts are left to be merged on read
+	 * 
+	 * @param tweets
+	 * @param authors
+	 */
+	private void fanOut(List<TweetDoc> tweets, Map<String, UserDoc> authors) {
+
+		long threshold = tweetsProperties.getHome().getHeavyFollowerThreshold();
+
+		Map<String, List<TweetDoc>> byAuthor = new LinkedHashMap<>();
+		for (TweetDoc tweet : tweets) {
+			UserDoc author = authors.get(tweet.getHandle());
+			if (!tweet.isReply() && tweet.getCreatedAt() != null
+					&& (author == null || followersCount(author) <= threshold)) {
+				byAuthor.computeIfAbsent(tweet.getHandle(), handle -> new ArrayList<>()).add(tweet);
+			}
+		}
+
+		byAuthor.forEach((handle, authorTweets) -> {
+
+			// the author sees their own tweets on their home timeline too
+			List<String> followers = followRepository.findFollowersOf(handle).stream()
+					.map(FollowDoc::getFollower).collect(Collectors.toList());
+			followers.add(handle);
+
+			authorTweets.forEach(tweet -> homeTimelines.push(followers,
+					new TimelineCursor(tweet.getCreatedAt(), tweet.getId())));
+		});
+	}
+
+	private long followersCount(UserDoc user) {
+		return user.getFollowersCount() == null ? 0 : user.getFollowersCount();
+	}
+
+	/**
+	 * task-2 method to get a page of all tweets
 	 * 
 	 * @throws InvalidTokenException
 	 * @throws NoTweetsFoundException
 	 */
 	@Override
-	public List<TweetDoc> getAllTweets() throws InvalidTokenException, NoTweetsFoundException {
-		List<TweetDoc> tweets = tweetRepository.findAll();
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public TweetPage getAllTweets(TimelineCursor before, Integer limit)
+			throws InvalidTokenException, NoTweetsFoundException {
 
-		if (tweets.isEmpty()) {
+		int pageSize = tweetsProperties.getTimeline().resolvePageSize(limit);
+
+		// fetch one extra tweet to know whether there is a next page
+		List<TweetDoc> tweets = tweetRepository.findTimeline(before, pageSize + 1);
+
+		// only the first page being empty means there are no tweets at all
+		if (tweets.isEmpty() && before == null) {
 			throw new NoTweetsFoundException(TweetConstants.TWEETS_NOT_FOUND_MESSAGE);
 		}
 
-		return tweets;
+		return TweetPage.of(tweets, pageSize);
+
+	}
+
+	/**
+	 * method to get a page of the home timeline of a user, newest first. the page
+	 * is cut from the cached timeline, tweets of heavy accounts are merged in from
+	 * mongo and pages past the cached tweets are read from mongo
+	 */
+	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public TweetPage getHomeTimeline(String username, TimelineCursor before, Integer limit) {
+
+		int pageSize = tweetsProperties.getTimeline().resolvePageSize(limit);
+
+		HomeTimeline timeline = homeTimelines.get(username, this::seedHomeTimeline);
+
+		List<TimelineCursor> refs = timeline.page(before, pageSize + 1);
+
+		// past the oldest cached tweet, read the page straight from mongo
+		if (refs.size() <= pageSize && timeline.isTruncated()) {
+			return TweetPage.of(tweetRepository.findByHandles(followeesOf(username), before, pageSize + 1), pageSize);
+		}
+
+		Map<String, TweetDoc> loaded = new HashMap<>();
+
+		// fan-out on read for the heavy accounts the user follows
+		if (!timeline.getHeavyFollowees().isEmpty()) {
+			List<TimelineCursor> merged = new ArrayList<>(refs);
+			for (TweetDoc tweet : tweetRepository.findByHandles(timeline.getHeavyFollowees(), before, pageSize + 1)) {
+				loaded.put(tweet.getId(), tweet);
+				merged.add(new TimelineCursor(tweet.getCreatedAt(), tweet.getId()));
+			}
+			merged.sort(Collections.reverseOrder(HomeTimeline.ORDER));
+			refs = merged.subList(0, Math.min(merged.size(), pageSize + 1));
+		}
 
+		List<TimelineCursor> pageRefs = refs.subList(0, Math.min(refs.size(), pageSize));
+
+		// load the pushed tweets from the cache, misses in one query
+		List<String> missing = pageRefs.stream().map(TimelineCursor::getId).filter(id -> !loaded.containsKey(id))
+				.collect(Collectors.toList());
+		if (!missing.isEmpty()) {
+			loaded.putAll(tweetCache.findAllById(missing));
+		}
+
+		// tweets deleted since they were pushed are skipped
+		List<TweetDoc> tweets = pageRefs.stream().map(ref -> loaded.get(ref.getId())).filter(tweet -> tweet != null)
+				.collect(Collectors.toList());
+
+		return new TweetPage(tweets, refs.size() > pageSize ? pageRefs.get(pageSize - 1) : null);
+	}
+
+	/**
+	 * method to build the home timeline of a user from the latest tweets of the
+	 * users they follow
+	 * 
+	 * @param username
+	 * @return
+	 */
+	private HomeTimeline seedHomeTimeline(String username) {
+		TweetsProperties.Home home = tweetsProperties.getHome();
+
+		List<String> followees = followeesOf(username);
+
+		Set<String> heavy = userRepository.findHeavyByUsernameIn(followees, home.getHeavyFollowerThreshold()).stream()
+				.map(UserDoc::getUsername).collect(Collectors.toSet());
+
+		HomeTimeline timeline = new HomeTimeline(home.getCapacity(), heavy);
+
+		// tweets fanned out while the seed query runs are pushed into it too
+		homeTimelines.startSeeding(username, timeline);
+
+		Set<String> light = new HashSet<>(followees);
+		light.removeAll(heavy);
+
+		if (!light.isEmpty()) {
+			List<TweetDoc> latest = tweetRepository.findByHandles(light, null, home.getCapacity());
+			latest.forEach(tweet -> timeline.add(new TimelineCursor(tweet.getCreatedAt(), tweet.getId())));
+
+			if (latest.size() == home.getCapacity()) {
+				timeline.markTruncated();
+			}
+		}
+
+		return timeline;
+	}
+
+	/**
+	 * method to get the users whose tweets show on the home timeline of a user,
+	 * the user included
+	 * 
+	 * @param username
+	 * @return
+	 */
+	private List<String> followeesOf(String username) {
+		List<String> followees = followRepository.findFolloweesOf(username).stream().map(FollowDoc::getFollowee)
+				.collect(Collectors.toList());
+		followees.add(username);
+		return followees;
+	}
+
+	/**
+	 * method to get a page of the replies to a tweet, oldest first
+	 * 
+	 * @throws NoTweetsFoundException
+	 */
+	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public TweetPage getReplies(String id, TimelineCursor after, Integer limit) throws NoTweetsFoundException {
+
+		int pageSize = tweetsProperties.getTimeline().resolvePageSize(limit);
+
+		List<TweetDoc> replies = tweetRepository.findReplies(id, after, pageSize + 1);
+
+		// an empty first page is only an error when the tweet itself is missing
+		if (replies.isEmpty() && after == null && !tweetRepository.existsById(id)) {
+			throw new NoTweetsFoundException(TweetConstants.TWEET_NOT_EXIST_MSG);
+		}
+
+		return TweetPage.of(replies, pageSize);
 	}
 
 	/**
@@ -96,6 +389,7 @@ public class TweetServiceImpl implements ITweetService {
 	 * @throws NoTweetsFoundException
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void deleteTweetById(String id, String username, String authToken)
 			throws InvalidTokenException, NoTweetsFoundException {
 
@@ -104,7 +398,7 @@ public class TweetServiceImpl implements ITweetService {
 		if (tokenUsername.equals(username)) {
 
 			// get details about the tweet
-			Optional<TweetDoc> tweet = tweetRepository.findById(id);
+			Optional<TweetDoc> tweet = tweetCache.findById(id);
 
 			// if tweet does not exist
 			if (!tweet.isPresent()) {
@@ -116,6 +410,17 @@ public class TweetServiceImpl implements ITweetService {
 			}
 
 			tweetRepository.delete(tweet.get());
+			tweetCache.invalidate(id);
+
+			// keep the reply count of the parent in step, replies are not on the
+			// timelines but the count of their parent is
+			if (tweet.get().getParentId() != null) {
+				String parentHandle = tweetRepository.incrementReplyCount(tweet.get().getParentId(), -1);
+				tweetCache.invalidate(tweet.get().getParentId());
+				timelineVersions.bump(parentHandle);
+			} else {
+				timelineVersions.bump(tweet.get().getHandle());
+			}
 
 		} else {
 			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
@@ -123,7 +428,15 @@ public class TweetServiceImpl implements ITweetService {
 
 	}
 
+	/**
+	 * method to like tweet by id
+	 * 
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidUserException
+	 * @throws InvalidTokenException
+	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void likeTweetById(String id, String username, String token)
 			throws NoTweetsFoundException, InvalidUserException, InvalidTokenException {
 
@@ -131,27 +444,74 @@ public class TweetServiceImpl implements ITweetService {
 
 		if (tokenUsername.equals(username)) {
 
-			Optional<TweetDoc> tweet = tweetRepository.findById(id);
+			if (tweetsProperties.getLikes().isWriteBehindEnabled()) {
+				bufferLike(id, username);
+			} else {
+				incrementLikes(id, username);
+			}
+
+		} else {
+			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
+		}
+
+	}
+
+	/**
+	 * method to validate the like and hand it to the write-behind buffer
+	 * 
+	 * @param id
+	 * @param username
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidUserException
+	 */
+	private void bufferLike(String id, String username) throws NoTweetsFoundException, InvalidUserException {
+
+		String handle = tweetCache.findById(id).map(TweetDoc::getHandle).orElse(null);
+
+		// if tweet does not exist
+		if (handle == null) {
+			throw new NoTweetsFoundException(TweetConstants.TWEET_NOT_EXIST_MSG);
+		}
+
+		// if the user posted the tweet
+		if (username.equals(handle)) {
+			throw new InvalidUserException(TweetConstants.USER_NOT_LIKE_MSG);
+		}
+
+		// a full buffer turns the like away, write it through instead
+		if (!likeBuffer.add(id, handle)) {
+			incrementLikes(id, username);
+			return;
+		}
+
+		tweetCache.applyLikes(id, 1);
+	}
+
+	/**
+	 * method to like the tweet directly in the database
+	 * 
+	 * @param id
+	 * @param username
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidUserException
+	 */
+	private void incrementLikes(String id, String username) throws NoTweetsFoundException, InvalidUserException {
+
+		// atomic increment, skipped when the user posted the tweet
+		String handle = tweetRepository.incrementLikes(id, username, 1);
+		if (handle == null) {
 
 			// if tweet does not exist
-			if (!tweet.isPresent()) {
+			if (!tweetRepository.existsById(id)) {
 				throw new NoTweetsFoundException(TweetConstants.TWEET_NOT_EXIST_MSG);
 			}
 
-			// if the user posted the tweet
-			if (username.equals(tweet.get().getHandle())) {
-				throw new InvalidUserException(TweetConstants.USER_NOT_LIKE_MSG);
-			}
-
-			// else
-			TweetDoc tweetResp = tweet.get();
-			tweetResp.setLikesOnTweet(tweetResp.getLikesOnTweet() + 1);
-			tweetRepository.save(tweetResp);
-
-		} else {
-			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
+			// else the user posted the tweet
+			throw new InvalidUserException(TweetConstants.USER_NOT_LIKE_MSG);
 		}
 
+		tweetCache.applyLikes(id, 1);
+		timelineVersions.bump(handle);
 	}
 
 	/**
@@ -163,43 +523,41 @@ public class TweetServiceImpl implements ITweetService {
 	 * @throws InvalidUserException
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void replyTweetById(String id, String username, String token, TweetDoc tweetReply)
 			throws InvalidTokenException, NoTweetsFoundException, InvalidTweetException, InvalidUserException {
 
 		String tokenUsername = jwtUtil.extractUsername(token);
 
 		if (tokenUsername.equals(username)) {
-			Optional<TweetDoc> tweetOp = tweetRepository.findById(id);
-
-			// if tweet is not present
-			if (!tweetOp.isPresent()) {
-				throw new NoTweetsFoundException(TweetConstants.TWEET_NOT_EXIST_MSG);
-			}
 
 			// if the tweet exceeds 144 characters
-			if (tweetReply.getMessage().length() > 144) {
+			if (tweetReply.getMessage() == null || tweetReply.getMessage().length() > 144) {
 				throw new InvalidTweetException(TweetConstants.TWEET_LIMIT_EXCEED);
 			}
 
-			// else
-			TweetDoc realTweet = tweetOp.get();
-			List<TweetDoc> replies = realTweet.getReplies();
-
-			if (replies == null) {
-				replies = new ArrayList<>();
+			// bump the reply count of the tweet, nothing matched if it is not present
+			String parentHandle = tweetRepository.incrementReplyCount(id, 1);
+			if (parentHandle == null) {
+				throw new NoTweetsFoundException(TweetConstants.TWEET_NOT_EXIST_MSG);
 			}
 
+			// else
+			UserDoc userDoc = userProfiles.get(username);
+
 			tweetReply.setReply(true);
+			tweetReply.setParentId(id);
 			tweetReply.setHandle(username);
-			tweetReply.setAvatarUrl(userRepository.findByUsername(username).getAvatarUrl());
-			replies.add(tweetReply);
-			realTweet.setReplies(replies);
+			tweetReply.setAvatarUrl(userDoc == null ? null : userDoc.getAvatarUrl());
+
+			if (tweetReply.getCreatedAt() == null) {
+				tweetReply.setCreatedAt(new Date());
+			}
 
 			// save the reply
 			tweetRepository.save(tweetReply);
-
-			// save the reply ref in real tweet
-			tweetRepository.save(realTweet);
+			tweetCache.invalidate(id);
+			timelineVersions.bump(parentHandle);
 		}
 
 		else {
@@ -217,13 +575,14 @@ public class TweetServiceImpl implements ITweetService {
 	 * @throws InvalidTweetException
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void updateTweetById(String id, String username, String token, TweetDoc updateTweet)
 			throws InvalidTokenException, NoTweetsFoundException, InvalidUserException, InvalidTweetException {
 
 		String tokenUsername = jwtUtil.extractUsername(token);
 
 		if (tokenUsername.equals(username)) {
-			Optional<TweetDoc> tweetOp = tweetRepository.findById(id);
+			Optional<TweetDoc> tweetOp = tweetCache.findById(id);
 
 			// if tweet is not present
 			if (!tweetOp.isPresent()) {
@@ -240,10 +599,16 @@ public class TweetServiceImpl implements ITweetService {
 				throw new InvalidTweetException(TweetConstants.TWEET_LIMIT_EXCEED);
 			}
 
-			// update the tweet
-			TweetDoc realTweet = tweetOp.get();
-			realTweet.setMessage(updateTweet.getMessage());
-			tweetRepository.save(realTweet);
+			// only the message is written, saving the cached copy would overwrite the
+			// counters. the cached copy is dropped even if the update fails
+			try {
+				if (tweetRepository.updateMessage(id, username, updateTweet.getMessage()) == 0) {
+					throw new NoTweetsFoundException(TweetConstants.TWEET_NOT_EXIST_MSG);
+				}
+			} finally {
+				tweetCache.invalidate(id);
+			}
+			timelineVersions.bump(username);
 
 		} else {
 			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
@@ -1,26 +1,38 @@
 package com.tweetapp.service.impl;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.tweetapp.cache.HomeTimelineCache;
+import com.tweetapp.cache.UserProfileCache;
+import com.tweetapp.cache.UsernameIndex;
+import com.tweetapp.config.TweetsProperties;
 import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.FollowDoc;
 import com.tweetapp.document.UserDoc;
 import com.tweetapp.exception.InvalidTokenException;
 import com.tweetapp.exception.InvalidUserException;
 import com.tweetapp.exception.NoUsersFoundException;
 import com.tweetapp.model.SecurityUser;
 import com.tweetapp.model.UserToken;
+import com.tweetapp.repository.IFollowRepository;
 import com.tweetapp.repository.IUserRepository;
 import com.tweetapp.service.IUserService;
 import com.tweetapp.util.JwtUtil;
 import com.tweetapp.util.TweetUtil;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -33,6 +45,9 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class UserServiceImpl implements IUserService {
 
+	// constants
+	private static final String USERNAME_LOWER = "usernameLower";
+
 	@Autowired
 	private IUserRepository userRepository;
 
@@ -46,8 +61,25 @@ public class UserServiceImpl implements IUserService {
 	@Qualifier("passwordEncoder")
 	private PasswordEncoder passwordEncoder;
 
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private UsernameIndex usernameIndex;
+
+	@Autowired
+	private IFollowRepository followRepository;
+
+	@Autowired
+	private HomeTimelineCache homeTimelines;
+
+	@Autowired
+	private UserProfileCache userProfiles;
+
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public UserDetails loadUserByUsername(String userName) {
+		// credentials are read from mongo, the profile cache does not hold them
 		UserDoc user = userRepository.findByUsername(userName);
 		return user == null ? null : new SecurityUser(user);
 	}
@@ -56,6 +88,7 @@ public class UserServiceImpl implements IUserService {
 	 * method to log in an existing user
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public UserToken loginUser(UserDoc userModel) throws InvalidUserException {
 
 		SecurityUser dbUser = (SecurityUser) loadUserByUsername(userModel.getUsername());
@@ -75,6 +108,7 @@ public class UserServiceImpl implements IUserService {
 	 * @throws InvalidUserException
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void registerUser(UserDoc user) throws InvalidUserException {
 
 		// validate the user details before saving in database
@@ -83,7 +117,14 @@ public class UserServiceImpl implements IUserService {
 			
 			//encode the password
 			user.setPassword(passwordEncoder.encode(user.getPassword()));
+			user.setFollowersCount(0L);
+			user.setFollowingCount(0L);
 			userRepository.save(user);
+			userProfiles.invalidate(user.getUsername());
+
+			if (tweetsProperties.getSearch().isInMemoryIndex()) {
+				usernameIndex.add(user);
+			}
 		} else {
 			throw new InvalidUserException(TweetConstants.INVALID_USER_DETAILS);
 		}
@@ -93,6 +134,7 @@ public class UserServiceImpl implements IUserService {
 	 * method to update the password for a logged in user
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public void forgetPasswordUser(String username, String password, String token) throws InvalidTokenException {
 		
 		String tokenUser = jwtUtil.extractUsername(token);
@@ -102,18 +144,90 @@ public class UserServiceImpl implements IUserService {
 			UserDoc dbUser = userRepository.findByUsername(username);
 			dbUser.setPassword(passwordEncoder.encode(password));
 			userRepository.save(dbUser);
+			userProfiles.invalidate(username);
 		} else {
 			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
 		}
 
 	}
 
+	/**
+	 * method to follow another user
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws InvalidUserException
+	 * @throws NoUsersFoundException
+	 */
+	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public void followUser(String username, String followee, String token)
+			throws InvalidTokenException, InvalidUserException, NoUsersFoundException {
+
+		String tokenUser = jwtUtil.extractUsername(token);
+
+		if (tokenUser.equals(username)) {
+
+			if (username.equals(followee)) {
+				throw new InvalidUserException(TweetConstants.USER_NOT_FOLLOW_MSG);
+			}
+
+			if (userProfiles.get(followee) == null) {
+				throw new NoUsersFoundException();
+			}
+
+			try {
+				followRepository.insert(new FollowDoc(null, username, followee, new Date()));
+				userRepository.incrementFollowCounts(username, followee, 1);
+			} catch (DuplicateKeyException e) {
+				log.info("{} already follows {}", username, followee);
+			}
+
+			// the counts decide whether the followee's tweets are fanned out
+			userProfiles.invalidate(username);
+			userProfiles.invalidate(followee);
+
+			// the home timeline is seeded again with the new followee
+			homeTimelines.invalidate(username);
+
+		} else {
+			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
+		}
+	}
+
+	/**
+	 * method to stop following a user
+	 * 
+	 * @throws InvalidTokenException
+	 */
+	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
+	public void unfollowUser(String username, String followee, String token) throws InvalidTokenException {
+
+		String tokenUser = jwtUtil.extractUsername(token);
+
+		if (tokenUser.equals(username)) {
+
+			if (followRepository.deleteByFollowerAndFollowee(username, followee) > 0) {
+				userRepository.incrementFollowCounts(username, followee, -1);
+			}
+
+			userProfiles.invalidate(username);
+			userProfiles.invalidate(followee);
+
+			homeTimelines.invalidate(username);
+
+		} else {
+			throw new BadCredentialsException(TweetConstants.UNAUTHORIZED_USER_ACCESS_MSG);
+		}
+	}
+
 	/**
 	 * task-1 method to get all users from the database
 	 * 
 	 * @throws NoUsersFoundException
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public List<UserDoc> getAllUsers() throws NoUsersFoundException {
 
 		List<UserDoc> users = userRepository.findAll();
@@ -128,12 +242,22 @@ public class UserServiceImpl implements IUserService {
 	}
 
 	/**
-	 * task-1 metod to get users by username
+	 * task-1 metod to get users by username prefix, ignoring case
 	 */
 	@Override
+	@Timed(TweetConstants.SERVICE_TIMER)
 	public List<UserDoc> getUsersByUsername(String username) throws NoUsersFoundException {
-		String pattern = "*" + username + "*";
-		List<UserDoc> users = userRepository.findByUsernameLike(pattern);
+		int limit = tweetsProperties.getSearch().getMaxResults();
+		List<UserDoc> users;
+
+		if (tweetsProperties.getSearch().isInMemoryIndex()) {
+			users = usernameIndex.search(username, limit);
+		} else {
+			// anchored range on the usernameLower index instead of a regex scan
+			String from = username.toLowerCase(Locale.ROOT);
+			users = userRepository.findByUsernameRange(from, from + Character.MAX_VALUE,
+					PageRequest.of(0, limit, Sort.by(USERNAME_LOWER)));
+		}
 
 		// in case there are no users in the database
 		if (users.isEmpty()) {
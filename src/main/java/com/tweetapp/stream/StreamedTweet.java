@@ -0,0 +1,20 @@
+package com.tweetapp.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * tweet already rendered to its timeline json, rendered once per tweet and
+ * shared by every connection
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class StreamedTweet {
+
+	private final String id;
+
+	private final String json;
+}
@@ -0,0 +1,206 @@
+package com.tweetapp.stream;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.util.JsonViewUtil;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * pushes new tweets to the open live stream connections. each tweet is
+ * rendered once, offered to every connection's bounded buffer and the buffers
+ * are written out on the hub's own writer threads, so publishing never waits
+ * on a client and slow clients never hold up other async work
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Component
+public class TweetStreamHub {
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private JsonViewUtil jsonViewUtil;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Executor streamExecutor;
+
+	private final Set<TweetSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	private Cache<String, Boolean> recentIds;
+
+	private Counter publishedTweets;
+
+	@PostConstruct
+	public void registerMetrics() {
+		Gauge.builder("tweets.stream.connections", subscribers, Set::size)
+				.description("open live stream connections").register(meterRegistry);
+		publishedTweets = Counter.builder("tweets.stream.published").description("tweets pushed to the live stream")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * writes to the connections block on the client's socket, so they get their
+	 * own bounded pool. it stays on platform threads even with virtual threads on,
+	 * SseEmitter.send writes while holding the emitter's monitor and would pin
+	 * the carrier for as long as a slow client takes
+	 */
+	@PostConstruct
+	public void startWriters() {
+		TweetsProperties.Stream stream = tweetsProperties.getStream();
+		ThreadPoolExecutor writers = new ThreadPoolExecutor(stream.getWriterThreads(), stream.getWriterThreads(), 60,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<>(stream.getWriterQueueSize()),
+				new CustomizableThreadFactory("tweet-stream-"));
+		writers.allowCoreThreadTimeOut(true);
+		streamExecutor = writers;
+	}
+
+	@PostConstruct
+	public void initRecentIds() {
+		recentIds = Caffeine.newBuilder().maximumSize(tweetsProperties.getStream().getRecentIds()).build();
+	}
+
+	@PreDestroy
+	public void stopWriters() {
+		if (streamExecutor instanceof ExecutorService) {
+			((ExecutorService) streamExecutor).shutdownNow();
+		}
+	}
+
+	/**
+	 * method to open a live stream connection, it is forgotten again once the
+	 * client goes away or the connection times out
+	 * 
+	 * @return
+	 */
+	public SseEmitter subscribe() {
+		TweetsProperties.Stream stream = tweetsProperties.getStream();
+
+		SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(stream.getTimeoutMinutes()));
+		TweetSubscriber subscriber = new TweetSubscriber(emitter, stream.getBufferSize());
+
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onError(e -> subscribers.remove(subscriber));
+		emitter.onTimeout(emitter::complete);
+		subscribers.add(subscriber);
+
+		return emitter;
+	}
+
+	/**
+	 * method to push new tweets to every connection, replies are left out like
+	 * on the timeline. events are delivered at least once, a tweet streamed
+	 * recently is not streamed again
+	 * 
+	 * @param tweets
+	 */
+	public void publish(List<TweetDoc> tweets) {
+
+		if (subscribers.isEmpty()) {
+			return;
+		}
+
+		for (TweetDoc tweet : tweets) {
+			if (tweet.isReply()
+					|| (tweet.getId() != null && recentIds.asMap().putIfAbsent(tweet.getId(), Boolean.TRUE) != null)) {
+				continue;
+			}
+
+			StreamedTweet streamed;
+			try {
+				streamed = new StreamedTweet(tweet.getId(), jsonViewUtil.getTimelineWriter().writeValueAsString(tweet));
+			} catch (JsonProcessingException e) {
+				log.error("skipping unrenderable tweet {} on the live stream", tweet.getId(), e);
+				continue;
+			}
+
+			for (TweetSubscriber subscriber : subscribers) {
+				if (subscriber.offer(streamed)) {
+					execute(subscriber, () -> drain(subscriber));
+				}
+			}
+
+			publishedTweets.increment();
+		}
+	}
+
+	/**
+	 * keep-alive comments stop proxies from closing idle connections and surface
+	 * the clients which went away
+	 */
+	@Scheduled(fixedDelayString = "${tweets.stream.heartbeat-ms:15000}")
+	public void heartbeat() {
+		for (TweetSubscriber subscriber : subscribers) {
+			execute(subscriber, () -> {
+				try {
+					subscriber.heartbeat();
+				} catch (Exception e) {
+					close(subscriber, e);
+				}
+			});
+		}
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	/**
+	 * method to hand a write to the writers, a connection whose write cannot be
+	 * queued is closed and its client reconnects
+	 * 
+	 * @param subscriber
+	 * @param write
+	 */
+	private void execute(TweetSubscriber subscriber, Runnable write) {
+		try {
+			streamExecutor.execute(write);
+		} catch (RejectedExecutionException e) {
+			close(subscriber, e);
+		}
+	}
+
+	private void drain(TweetSubscriber subscriber) {
+		try {
+			subscriber.drain();
+		} catch (Exception e) {
+			close(subscriber, e);
+		}
+	}
+
+	private void close(TweetSubscriber subscriber, Exception e) {
+		log.debug("closing live stream connection", e);
+		subscribers.remove(subscriber);
+		subscriber.getEmitter().completeWithError(e);
+	}
+}
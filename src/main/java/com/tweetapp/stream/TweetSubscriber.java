@@ -0,0 +1,140 @@
+package com.tweetapp.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * one live stream connection with its own bounded buffer. a slow client only
+ * loses its own oldest tweets, it never holds back the publisher or the other
+ * clients
+ * 
+ * @author prateekpurohit
+ *
+ */
+public class TweetSubscriber {
+
+	// constants
+	static final String TWEET_EVENT = "tweet";
+
+	private final SseEmitter emitter;
+
+	private final int capacity;
+
+	private final ArrayDeque<StreamedTweet> buffer;
+
+	// a lock rather than a monitor, tweets are offered from consumers that may run on virtual threads
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// set while one thread is writing the buffer out to the connection
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private long dropped;
+
+	public TweetSubscriber(SseEmitter emitter, int capacity) {
+		this.emitter = emitter;
+		this.capacity = capacity;
+		this.buffer = new ArrayDeque<>(capacity);
+	}
+
+	public SseEmitter getEmitter() {
+		return emitter;
+	}
+
+	/**
+	 * method to buffer a tweet, dropping the oldest one when the buffer is full
+	 * 
+	 * @param tweet
+	 * @return true when the caller has to schedule a drain
+	 */
+	public boolean offer(StreamedTweet tweet) {
+		lock.lock();
+		try {
+			if (buffer.size() == capacity) {
+				buffer.pollFirst();
+				dropped++;
+			}
+			buffer.addLast(tweet);
+		} finally {
+			lock.unlock();
+		}
+
+		return draining.compareAndSet(false, true);
+	}
+
+	/**
+	 * method to write the buffered tweets to the connection until the buffer is
+	 * empty, only ever run by one thread at a time
+	 * 
+	 * @throws IOException when the client went away
+	 */
+	public void drain() throws IOException {
+		while (true) {
+			StreamedTweet tweet;
+			lock.lock();
+			try {
+				tweet = buffer.pollFirst();
+			} finally {
+				lock.unlock();
+			}
+
+			if (tweet == null) {
+				draining.set(false);
+
+				// a tweet offered after the poll but before the reset has no drain scheduled
+				if (isEmpty() || !draining.compareAndSet(false, true)) {
+					return;
+				}
+				continue;
+			}
+
+			try {
+				emitter.send(SseEmitter.event().id(tweet.getId()).name(TWEET_EVENT).data(tweet.getJson(),
+						MediaType.APPLICATION_JSON));
+			} catch (IOException | RuntimeException e) {
+				draining.set(false);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * method to send a keep-alive comment
+	 * 
+	 * @throws IOException when the client went away
+	 */
+	public void heartbeat() throws IOException {
+		emitter.send(SseEmitter.event().comment(""));
+	}
+
+	public boolean isEmpty() {
+		lock.lock();
+		try {
+			return buffer.isEmpty();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int size() {
+		lock.lock();
+		try {
+			return buffer.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getDropped() {
+		lock.lock();
+		try {
+			return dropped;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.tweetapp.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tweetapp.document.TweetDoc;
+
+import lombok.Getter;
+
+/**
+ * shared json views of tweets and users. filters, writers and readers are
+ * immutable and built once on top of the application's object mapper, so no
+ * request or event pays for building a mapper
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Getter
+@Component
+public class JsonViewUtil {
+
+	// filter ids declared on the documents
+	private static final String TWEET_FILTER = "TweetDocFilter";
+	private static final String USER_FILTER = "UserDocFilter";
+
+	// tweets as shown on the timelines
+	public static final FilterProvider TIMELINE_FILTERS = new SimpleFilterProvider().addFilter(TWEET_FILTER,
+			SimpleBeanPropertyFilter.filterOutAllExcept("handle", "message", "id", "createdAt", "avatarUrl",
+					"likesOnTweet", "replyCount", "parentId"));
+
+	// tweets as published on tweet-events, the id lets the consumer drop redelivered events
+	public static final FilterProvider TWEET_EVENT_FILTERS = new SimpleFilterProvider().addFilter(TWEET_FILTER,
+			SimpleBeanPropertyFilter.filterOutAllExcept("id", "message", "createdAt", "handle", "avatarUrl",
+					"likesOnTweet", "reply"));
+
+	// users as shown in user lists and search
+	public static final FilterProvider USER_LIST_FILTERS = new SimpleFilterProvider().addFilter(USER_FILTER,
+			SimpleBeanPropertyFilter.filterOutAllExcept("username", "firstName", "lastName"));
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private ObjectWriter timelineWriter;
+
+	// same view for streamed arrays, flushed per batch instead of per tweet
+	private ObjectWriter timelineStreamWriter;
+
+	private ObjectWriter userListWriter;
+
+	private ObjectWriter tweetEventWriter;
+
+	private ObjectReader tweetEventReader;
+
+	@PostConstruct
+	public void initViews() {
+		timelineWriter = objectMapper.writer(TIMELINE_FILTERS);
+		timelineStreamWriter = timelineWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		userListWriter = objectMapper.writer(USER_LIST_FILTERS);
+
+		// events keep dates as epoch millis, the format already on the topic
+		tweetEventWriter = objectMapper.writer(TWEET_EVENT_FILTERS).with(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		tweetEventReader = objectMapper.readerFor(TweetDoc.class);
+	}
+
+	/**
+	 * method to write tweets as a json array in their timeline view, straight
+	 * from the iterator to the stream so the tweets are never all on the heap.
+	 * the stream is flushed every flushEvery tweets
+	 * 
+	 * @param tweets
+	 * @param out
+	 * @param flushEvery
+	 * @throws IOException
+	 */
+	public void writeTimeline(Iterator<TweetDoc> tweets, OutputStream out, int flushEvery) throws IOException {
+		try (JsonGenerator generator = timelineStreamWriter.createGenerator(out)) {
+
+			// the caller owns the stream
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.writeStartArray();
+
+			int written = 0;
+			while (tweets.hasNext()) {
+				timelineStreamWriter.writeValue(generator, tweets.next());
+
+				if (++written % flushEvery == 0) {
+					generator.flush();
+				}
+			}
+
+			generator.writeEndArray();
+		}
+	}
+}
@@ -2,17 +2,31 @@ package com.tweetapp.util;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tweetapp.config.TweetsProperties;
 import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.document.UserDoc;
 import com.tweetapp.model.UserToken;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 /**
  * utility class to handle JWT related operations
@@ -26,6 +40,33 @@ public class JwtUtil {
 	private static final SecretKey SECRET_KEY = Keys
 			.hmacShaKeyFor(TweetConstants.JWT_KEY.getBytes(StandardCharsets.UTF_8));
 
+	// parsers are immutable and thread safe, build it once
+	private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build();
+
+	// request attribute holding the token verified for the current request
+	private static final String VERIFIED_TOKEN_ATTRIBUTE = JwtUtil.class.getName() + ".VERIFIED_TOKEN";
+
+	@Autowired
+	private TweetsProperties tweetsProperties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Cache<String, Claims> claimsCache;
+
+	// signature checks of tokens which were not cached yet
+	private Timer parseTimer;
+
+	@PostConstruct
+	public void initClaimsCache() {
+		claimsCache = Caffeine.newBuilder().maximumSize(tweetsProperties.getJwt().getClaimsCacheSize())
+				.expireAfter(new ClaimsExpiry()).recordStats().build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwtClaims");
+		parseTimer = Timer.builder("tweets.jwt.parse").description("time to verify and parse a jwt token")
+				.register(meterRegistry);
+	}
+
 	/**
 	 * method to create jwt token
 	 * 
@@ -49,8 +90,7 @@ public class JwtUtil {
 	 * @return
 	 */
 	public boolean isValidToken(String token) {
-		String pureTokeString = token.substring(6);
-		Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(pureTokeString).getBody();
+		parseClaims(token);
 		return true;
 	}
 
@@ -60,12 +100,75 @@ public class JwtUtil {
 	 * @return
 	 */
 	public String extractUsername(String token) {
+		return (String) parseClaims(token).get(TweetConstants.USERNAME_CLAIM);
+	}
+
+	/**
+	 * method to get the verified claims of a token. the signature is checked once
+	 * per token: later calls in the same request reuse the request's claims and
+	 * later requests reuse the cached claims until the token expires
+	 * 
+	 * @param token
+	 * @return
+	 */
+	public Claims parseClaims(String token) {
 		String pureTokenString = token.substring(6);
-		return (String)Jwts.parserBuilder()
-				   .setSigningKey(SECRET_KEY)
-				   .build()
-				   .parseClaimsJws(pureTokenString)
-				   .getBody()
-				   .get(TweetConstants.USERNAME_CLAIM);
+
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			Object verified = attributes.getAttribute(VERIFIED_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+			if (verified instanceof VerifiedToken && ((VerifiedToken) verified).token.equals(pureTokenString)) {
+				return ((VerifiedToken) verified).claims;
+			}
+		}
+
+		// invalid or expired tokens throw here and are never cached
+		Claims claims = claimsCache.get(pureTokenString,
+				key -> parseTimer.record(() -> PARSER.parseClaimsJws(key).getBody()));
+
+		if (attributes != null) {
+			attributes.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, new VerifiedToken(pureTokenString, claims),
+					RequestAttributes.SCOPE_REQUEST);
+		}
+
+		return claims;
+	}
+
+	/**
+	 * token verified for the current request along with its claims
+	 */
+	private static class VerifiedToken {
+		private final String token;
+		private final Claims claims;
+
+		VerifiedToken(String token, Claims claims) {
+			this.token = token;
+			this.claims = claims;
+		}
+	}
+
+	/**
+	 * evicts cached claims at the token's expiry
+	 */
+	private static class ClaimsExpiry implements Expiry<String, Claims> {
+
+		@Override
+		public long expireAfterCreate(String key, Claims claims, long currentTime) {
+			Date expiration = claims.getExpiration();
+			if (expiration == null) {
+				return 0;
+			}
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+		@Override
+		public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
 	}
 }
@@ -1,17 +1,25 @@
 package com.tweetapp.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 
+import org.bson.types.ObjectId;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ser.FilterProvider;
-import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
-import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.document.TweetDoc;
 import com.tweetapp.document.UserDoc;
+import com.tweetapp.exception.InvalidCursorException;
 import com.tweetapp.exception.InvalidUserException;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
 
 /**
  * utility class for tweetsApp
@@ -25,6 +33,7 @@ public class TweetUtil {
 	// constants
 	private static final String MESSAGE_START = "tweetsApp.users index:";
 	private static final String MESSAGE_END = "dup key";
+	private static final String CURSOR_SEPARATOR = ":";
 
 	/**
 	 * method to return the field for dupe check exception
@@ -62,15 +71,12 @@ public class TweetUtil {
 	 * @param tweets
 	 * @return
 	 */
-	public MappingJacksonValue filterTweetData(List<TweetDoc> tweets) {// filter out the unnecessary properties
-		SimpleBeanPropertyFilter tweetFilter = SimpleBeanPropertyFilter.filterOutAllExcept("handle", "message", "id",
-				"createdAt", "avatarUrl", "likesOnTweet","replies");
-
-		FilterProvider filters = new SimpleFilterProvider().addFilter("TweetDocFilter", tweetFilter);
+	public MappingJacksonValue filterTweetData(List<TweetDoc> tweets) {
 
+		// filter out the unnecessary properties
 		MappingJacksonValue tweetsMapping = new MappingJacksonValue(tweets);
 
-		tweetsMapping.setFilters(filters);
+		tweetsMapping.setFilters(JsonViewUtil.TIMELINE_FILTERS);
 
 		return tweetsMapping;
 
@@ -85,17 +91,72 @@ public class TweetUtil {
 	public MappingJacksonValue filterUserData(List<UserDoc> users) {
 
 		// filter out the unnecessary properties
-		SimpleBeanPropertyFilter userFilter = SimpleBeanPropertyFilter.filterOutAllExcept("username", "firstName",
-				"lastName");
-
-		FilterProvider filters = new SimpleFilterProvider().addFilter("UserDocFilter", userFilter);
-
 		MappingJacksonValue usersMapping = new MappingJacksonValue(users);
 
-		usersMapping.setFilters(filters);
+		usersMapping.setFilters(JsonViewUtil.USER_LIST_FILTERS);
 
 		return usersMapping;
 
 	}
 
+	/**
+	 * method to encode a timeline cursor into an opaque url safe token
+	 * 
+	 * @param cursor
+	 * @return
+	 */
+	public String encodeCursor(TimelineCursor cursor) {
+		String raw = cursor.getCreatedAt().getTime() + CURSOR_SEPARATOR + cursor.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * method to decode a cursor token sent by the client, a missing token means
+	 * the first page
+	 * 
+	 * @param token
+	 * @return
+	 * @throws InvalidCursorException
+	 */
+	public TimelineCursor decodeCursor(String token) throws InvalidCursorException {
+
+		if (token == null || token.isEmpty()) {
+			return null;
+		}
+
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.indexOf(CURSOR_SEPARATOR);
+			String id = raw.substring(separator + 1);
+
+			if (separator < 0 || !ObjectId.isValid(id)) {
+				throw new InvalidCursorException(TweetConstants.INVALID_CURSOR_MSG);
+			}
+
+			return new TimelineCursor(new Date(Long.parseLong(raw.substring(0, separator))), id);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException(TweetConstants.INVALID_CURSOR_MSG);
+		}
+	}
+
+	/**
+	 * method to build the response for a page of tweets, the cursor for the next
+	 * page goes in the X-Next-Cursor header
+	 * 
+	 * @param page
+	 * @return
+	 */
+	public ResponseEntity<MappingJacksonValue> toPageResponse(TweetPage page) {
+
+		// filter out the unnecessary fields in the tweets list
+		MappingJacksonValue tweetsMapping = filterTweetData(page.getTweets());
+
+		HttpHeaders headers = new HttpHeaders();
+		if (page.getNextCursor() != null) {
+			headers.set(TweetConstants.NEXT_CURSOR_HEADER, encodeCursor(page.getNextCursor()));
+		}
+
+		return ResponseEntity.status(HttpStatus.OK).headers(headers).body(tweetsMapping);
+	}
+
 }
@@ -0,0 +1,104 @@
+package com.tweetapp.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.InsertManyOptions;
+import com.tweetapp.config.TweetsProperties;
+
+/**
+ * junits for the ndjson export / import
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class NdjsonBulkRunnerTest {
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Mock
+	private MongoCollection<Document> collection;
+
+	@InjectMocks
+	private NdjsonBulkRunner bulkRunner;
+
+	@BeforeEach
+	void setup() {
+		tweetsProperties.getBulk().setBatchSize(2);
+		when(collection.getNamespace()).thenReturn(new MongoNamespace("tweetsApp.tweets"));
+	}
+
+	/**
+	 * method to test exported documents are imported back unchanged in chunks
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	void test_exportThenImportRoundTrip() throws IOException {
+		List<Document> documents = Arrays.asList(document("first", 1L), document("second", 2L),
+				document("third", 3L));
+
+		// the cursor is stubbed before it is handed to another stubbing
+		MongoCursor<Document> cursor = cursor(documents.iterator());
+		FindIterable<Document> find = mock(FindIterable.class);
+		when(collection.find()).thenReturn(find);
+		when(find.batchSize(anyInt())).thenReturn(find);
+		when(find.iterator()).thenReturn(cursor);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(3, bulkRunner.exportCollection(collection, out));
+
+		// capture the chunks, the list is reused between inserts
+		List<Document> imported = new ArrayList<>();
+		when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenAnswer(invocation -> {
+			imported.addAll(invocation.getArgument(0));
+			return null;
+		});
+
+		assertEquals(3, bulkRunner.importCollection(collection, new ByteArrayInputStream(out.toByteArray())));
+
+		verify(collection, times(2)).insertMany(anyList(), any(InsertManyOptions.class));
+		assertEquals(documents, imported);
+	}
+
+	private Document document(String message, long likes) {
+		return new Document("_id", new ObjectId()).append("message", message).append("likesOnTweet", likes);
+	}
+
+	@SuppressWarnings("unchecked")
+	private MongoCursor<Document> cursor(Iterator<Document> documents) {
+		MongoCursor<Document> cursor = mock(MongoCursor.class);
+		when(cursor.hasNext()).thenAnswer(invocation -> documents.hasNext());
+		when(cursor.next()).thenAnswer(invocation -> documents.next());
+		return cursor;
+	}
+}
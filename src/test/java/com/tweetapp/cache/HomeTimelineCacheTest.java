@@ -0,0 +1,93 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.model.TimelineCursor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the cache of home timelines
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class HomeTimelineCacheTest {
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private HomeTimelineCache homeTimelines;
+
+	private static final String TEST_USER = "testUser";
+
+	@BeforeEach
+	void setup() {
+		homeTimelines.initTimelines();
+	}
+
+	/**
+	 * method to test a tweet pushed while the timeline is seeded is kept
+	 */
+	@Test
+	void test_pushWhileSeedingReachesTimeline() {
+		HomeTimeline timeline = homeTimelines.get(TEST_USER, username -> {
+			HomeTimeline seeded = new HomeTimeline(10, Collections.emptySet());
+			homeTimelines.startSeeding(username, seeded);
+
+			// pushed between the seed query and the cache put
+			homeTimelines.push(Arrays.asList(username), ref(2));
+
+			seeded.add(ref(1));
+			return seeded;
+		});
+
+		// then
+		assertSame(timeline, homeTimelines.get(TEST_USER));
+		assertEquals(Arrays.asList(ref(2), ref(1)), timeline.page(null, 10));
+
+		homeTimelines.push(Arrays.asList(TEST_USER), ref(3));
+		assertEquals(3, timeline.size());
+	}
+
+	/**
+	 * method to test the cache is bounded by the references of its timelines
+	 */
+	@Test
+	void test_cacheIsBoundedByReferences() {
+		tweetsProperties.getHome().setMaxReferences(100);
+		homeTimelines.initTimelines();
+
+		for (int i = 0; i < 20; i++) {
+			homeTimelines.get("user" + i, username -> new HomeTimeline(800, Collections.emptySet()));
+		}
+		homeTimelines.cleanUp();
+
+		// each empty timeline has room for 16 references
+		assertTrue(homeTimelines.size() <= 6);
+	}
+
+	private TimelineCursor ref(long time) {
+		return new TimelineCursor(new Date(time), "id" + time);
+	}
+}
@@ -0,0 +1,102 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tweetapp.model.TimelineCursor;
+
+/**
+ * junits for the home timeline ring buffer
+ * 
+ * @author prateekpurohit
+ *
+ */
+class HomeTimelineTest {
+
+	/**
+	 * method to test the page is newest first and starts after the cursor
+	 */
+	@Test
+	void test_pageIsNewestFirstAfterCursor() {
+		HomeTimeline timeline = new HomeTimeline(10, Collections.emptySet());
+		timeline.add(ref(1));
+		timeline.add(ref(2));
+		timeline.add(ref(3));
+
+		assertEquals(Arrays.asList(ref(3), ref(2)), timeline.page(null, 2));
+		assertEquals(Arrays.asList(ref(2), ref(1)), timeline.page(ref(3), 5));
+		assertEquals(0, timeline.page(ref(1), 5).size());
+	}
+
+	/**
+	 * method to test a full buffer drops its oldest tweet
+	 */
+	@Test
+	void test_addDropsOldestWhenFull() {
+		HomeTimeline timeline = new HomeTimeline(3, Collections.emptySet());
+		for (int i = 1; i <= 5; i++) {
+			timeline.add(ref(i));
+		}
+
+		assertEquals(3, timeline.size());
+		assertTrue(timeline.isTruncated());
+		assertEquals(Arrays.asList(ref(5), ref(4), ref(3)), timeline.page(null, 10));
+	}
+
+	/**
+	 * method to test late tweets are inserted in order and duplicates ignored
+	 */
+	@Test
+	void test_addKeepsOrderAndIgnoresDuplicates() {
+		HomeTimeline timeline = new HomeTimeline(3, Collections.emptySet());
+		timeline.add(ref(1));
+		timeline.add(ref(4));
+		timeline.add(ref(2));
+		timeline.add(ref(4));
+
+		assertFalse(timeline.isTruncated());
+		assertEquals(Arrays.asList(ref(4), ref(2), ref(1)), timeline.page(null, 10));
+
+		// full, a late tweet still newer than the oldest one replaces it
+		timeline.add(ref(3));
+		List<TimelineCursor> page = timeline.page(null, 10);
+
+		assertEquals(Arrays.asList(ref(4), ref(3), ref(2)), page);
+
+		// older than everything kept
+		timeline.add(ref(0));
+		assertEquals(page, timeline.page(null, 10));
+	}
+
+	/**
+	 * method to test the buffer grows with the timeline up to its capacity
+	 */
+	@Test
+	void test_addGrowsBufferUpToCapacity() {
+		HomeTimeline timeline = new HomeTimeline(40, Collections.emptySet());
+
+		assertEquals(16, timeline.slots());
+
+		for (int i = 1; i <= 50; i++) {
+			timeline.add(ref(i));
+		}
+
+		assertEquals(40, timeline.slots());
+		assertEquals(40, timeline.size());
+		assertEquals(Arrays.asList(ref(50), ref(49)), timeline.page(null, 2));
+		assertEquals(ref(11), timeline.page(ref(12), 10).get(0));
+		assertTrue(timeline.isTruncated());
+	}
+
+	private TimelineCursor ref(long time) {
+		return new TimelineCursor(new Date(time), "id" + time);
+	}
+}
@@ -0,0 +1,169 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.repository.ITweetRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the likes write-behind buffer
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class LikeWriteBehindBufferTest {
+
+	@Mock
+	private ITweetRepository tweetRepository;
+
+	@Mock
+	private TimelineVersions timelineVersions;
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Spy
+	private SyncTaskExecutor flushExecutor = new SyncTaskExecutor();
+
+	@InjectMocks
+	private LikeWriteBehindBuffer likeBuffer;
+
+	private static final String TEST_ID = "testId";
+	private static final String TEST_ID_2 = "testId2";
+	private static final String TEST_HANDLE = "testUser";
+
+	@BeforeEach
+	void setup() {
+		likeBuffer.registerMetrics();
+	}
+
+	/**
+	 * method to test likes on the same tweet are coalesced into one delta
+	 */
+	@Test
+	void test_flushCoalescesLikes() {
+		likeBuffer.add(TEST_ID, TEST_HANDLE);
+		likeBuffer.add(TEST_ID, TEST_HANDLE);
+		likeBuffer.add(TEST_ID_2, TEST_HANDLE);
+
+		assertEquals(3, likeBuffer.getPendingLikes());
+
+		likeBuffer.flush();
+
+		// then
+		Map<String, Long> expected = new HashMap<>();
+		expected.put(TEST_ID, 2L);
+		expected.put(TEST_ID_2, 1L);
+		verify(tweetRepository, times(1)).bulkIncrementLikes(expected);
+		verify(timelineVersions, times(1)).bumpAll(Set.of(TEST_HANDLE));
+		assertEquals(0, likeBuffer.getPendingLikes());
+	}
+
+	/**
+	 * method to test an empty buffer does not hit the database
+	 */
+	@Test
+	void test_flushSkipsEmptyBuffer() {
+		likeBuffer.flush();
+
+		verify(tweetRepository, never()).bulkIncrementLikes(anyMap());
+	}
+
+	/**
+	 * method to test likes are kept when the bulk write fails
+	 */
+	@Test
+	void test_flushKeepsLikesOnFailure() {
+		likeBuffer.add(TEST_ID, TEST_HANDLE);
+		doThrow(new DataAccessResourceFailureException("down")).when(tweetRepository).bulkIncrementLikes(anyMap());
+
+		likeBuffer.flush();
+
+		// then
+		verify(timelineVersions, never()).bumpAll(anyCollection());
+		assertEquals(1, likeBuffer.getPendingLikes());
+	}
+
+	/**
+	 * method to test a full buffer turns likes on further tweets away instead of
+	 * flushing in the caller's thread
+	 */
+	@Test
+	void test_addRejectsWhenFull() {
+		tweetsProperties.getLikes().setMaxPendingTweets(1);
+
+		assertTrue(likeBuffer.add(TEST_ID, TEST_HANDLE));
+		assertFalse(likeBuffer.add(TEST_ID_2, TEST_HANDLE));
+		assertTrue(likeBuffer.add(TEST_ID, TEST_HANDLE));
+
+		// then
+		verify(tweetRepository, never()).bulkIncrementLikes(anyMap());
+		assertEquals(2, likeBuffer.getPendingLikes());
+	}
+
+	/**
+	 * method to test enough pending tweets hand a flush to the flush executor
+	 */
+	@Test
+	void test_addFlushesEarlyWhenEnoughPending() {
+		tweetsProperties.getLikes().setFlushAtPendingTweets(2);
+
+		likeBuffer.add(TEST_ID, TEST_HANDLE);
+
+		// then
+		verify(tweetRepository, never()).bulkIncrementLikes(anyMap());
+
+		likeBuffer.add(TEST_ID_2, TEST_HANDLE);
+
+		verify(tweetRepository, times(1)).bulkIncrementLikes(anyMap());
+		verify(flushExecutor, times(1)).execute(any());
+		assertEquals(0, likeBuffer.getPendingLikes());
+	}
+
+	/**
+	 * method to test the likes of a failed flush are only kept as far as they fit
+	 */
+	@Test
+	void test_flushKeepsLikesOnFailureUpToBound() {
+		likeBuffer.add(TEST_ID, TEST_HANDLE);
+		likeBuffer.add(TEST_ID_2, TEST_HANDLE);
+		tweetsProperties.getLikes().setMaxPendingTweets(1);
+		doThrow(new DataAccessResourceFailureException("down")).when(tweetRepository).bulkIncrementLikes(anyMap());
+
+		likeBuffer.flush();
+
+		// then
+		assertEquals(1, likeBuffer.getPendingLikes());
+		assertEquals(1.0, meterRegistry.get("tweets.likes.dropped").counter().count());
+	}
+}
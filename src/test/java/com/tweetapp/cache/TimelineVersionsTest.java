@@ -0,0 +1,69 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.document.TimelineVersionDoc;
+import com.tweetapp.repository.ITimelineVersionRepository;
+
+/**
+ * junits for the timeline versions
+ *
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TimelineVersionsTest {
+
+	@Mock
+	private ITimelineVersionRepository timelineVersionRepository;
+
+	@InjectMocks
+	private TimelineVersions timelineVersions;
+
+	private static final String TEST_USER = "testUser";
+
+	/**
+	 * method to test a write bumps the global timeline and the timelines of its
+	 * authors in one call
+	 */
+	@Test
+	void test_bumpAllBumpsGlobalAndUserTimelines() {
+		timelineVersions.bumpAll(Arrays.asList(TEST_USER, null));
+
+		// then
+		verify(timelineVersionRepository, times(1))
+				.bump(Set.of(TimelineVersions.ALL, TimelineVersions.USER + TEST_USER));
+	}
+
+	/**
+	 * method to test the etag follows the stored version
+	 */
+	@Test
+	void test_etagFollowsVersion() {
+
+		// when
+		when(timelineVersionRepository.findById(TimelineVersions.USER + TEST_USER)).thenReturn(Optional.empty())
+				.thenReturn(Optional.of(new TimelineVersionDoc(TimelineVersions.USER + TEST_USER, 1)));
+
+		String unwritten = timelineVersions.userEtag(TEST_USER);
+		String written = timelineVersions.userEtag(TEST_USER);
+
+		// then
+		assertEquals("\"0\"", unwritten);
+		assertNotEquals(unwritten, written);
+	}
+}
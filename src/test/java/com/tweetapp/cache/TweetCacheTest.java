@@ -0,0 +1,166 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.repository.ITweetRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the hot tweet cache
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TweetCacheTest {
+
+	@Mock
+	private ITweetRepository tweetRepository;
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private TweetCache tweetCache;
+
+	private static final String TEST_ID = "testId";
+	private static final String TEST_ID_2 = "testId2";
+
+	@BeforeEach
+	void setup() {
+		tweetCache.initTweets();
+	}
+
+	/**
+	 * method to test a cached tweet is read from mongo only once
+	 */
+	@Test
+	void test_findByIdReadsThrough() {
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweet(TEST_ID)));
+
+		assertTrue(tweetCache.findById(TEST_ID).isPresent());
+		assertTrue(tweetCache.findById(TEST_ID).isPresent());
+
+		// then
+		verify(tweetRepository, times(1)).findById(TEST_ID);
+		assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "tweets").tag("result", "hit")
+				.functionCounter().count());
+	}
+
+	/**
+	 * method to test missing tweets are not cached
+	 */
+	@Test
+	void test_findByIdDoesNotCacheMissingTweet() {
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.empty());
+
+		assertFalse(tweetCache.findById(TEST_ID).isPresent());
+		assertFalse(tweetCache.findById(TEST_ID).isPresent());
+
+		// then
+		verify(tweetRepository, times(2)).findById(TEST_ID);
+	}
+
+	/**
+	 * method to test findAllById loads only the misses
+	 */
+	@Test
+	void test_findAllByIdLoadsMisses() {
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweet(TEST_ID)));
+		when(tweetRepository.findAllById(any())).thenReturn(Arrays.asList(tweet(TEST_ID_2)));
+
+		tweetCache.findById(TEST_ID);
+		Map<String, TweetDoc> tweets = tweetCache.findAllById(Arrays.asList(TEST_ID, TEST_ID_2));
+
+		// then
+		assertEquals(2, tweets.size());
+		verify(tweetRepository, times(1)).findAllById(any());
+	}
+
+	/**
+	 * method to test likes are added to the cached copy and invalidation reloads
+	 */
+	@Test
+	void test_applyLikesAndInvalidate() {
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweet(TEST_ID)));
+
+		TweetDoc cached = tweetCache.findById(TEST_ID).get();
+		tweetCache.applyLikes(TEST_ID, 2);
+
+		assertEquals(2L, tweetCache.findById(TEST_ID).get().getLikesOnTweet());
+		assertEquals(0L, cached.getLikesOnTweet());
+
+		tweetCache.invalidate(TEST_ID);
+		tweetCache.findById(TEST_ID);
+
+		// then
+		verify(tweetRepository, times(2)).findById(TEST_ID);
+	}
+
+	/**
+	 * method to test an expired tweet is read from mongo again
+	 */
+	@Test
+	void test_findByIdReloadsAfterTtl() {
+		tweetsProperties.getCache().setTtlSeconds(0);
+		tweetCache.initTweets();
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweet(TEST_ID)));
+
+		tweetCache.findById(TEST_ID);
+		tweetCache.findById(TEST_ID);
+
+		// then
+		verify(tweetRepository, times(2)).findById(TEST_ID);
+	}
+
+	/**
+	 * method to test the entry count stays bounded by the byte budget
+	 */
+	@Test
+	void test_cacheIsBounded() {
+		tweetsProperties.getCache().setMaxEntries(10);
+		tweetsProperties.getCache().setMaxBytes(10000);
+		tweetCache.initTweets();
+
+		for (int i = 0; i < 100; i++) {
+			String id = "id" + i;
+			when(tweetRepository.findById(id)).thenReturn(Optional.of(tweet(id)));
+			tweetCache.findById(id);
+		}
+		tweetCache.cleanUp();
+
+		assertTrue(tweetCache.size() <= 10);
+	}
+
+	private TweetDoc tweet(String id) {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId(id);
+		tweet.setMessage("message");
+		return tweet;
+	}
+}
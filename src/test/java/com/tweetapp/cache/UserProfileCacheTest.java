@@ -0,0 +1,108 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.repository.IUserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the user profile cache
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class UserProfileCacheTest {
+
+	@Mock
+	private IUserRepository userRepository;
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private UserProfileCache userProfiles;
+
+	private static final String TEST_USER = "testUser";
+	private static final String TEST_USER_2 = "testUser2";
+
+	@BeforeEach
+	void setup() {
+		userProfiles.initUsers();
+	}
+
+	/**
+	 * method to test a user is read from mongo once until invalidated
+	 */
+	@Test
+	void test_getReadsThroughUntilInvalidated() {
+		when(userRepository.findProfileByUsername(TEST_USER)).thenReturn(user(TEST_USER));
+
+		userProfiles.get(TEST_USER);
+		userProfiles.get(TEST_USER);
+		verify(userRepository, times(1)).findByUsername(TEST_USER);
+
+		userProfiles.invalidate(TEST_USER);
+		userProfiles.get(TEST_USER);
+
+		// then
+		verify(userRepository, times(2)).findByUsername(TEST_USER);
+	}
+
+	/**
+	 * method to test unknown users are not cached
+	 */
+	@Test
+	void test_getDoesNotCacheUnknownUser() {
+		when(userRepository.findProfileByUsername(TEST_USER)).thenReturn(null);
+
+		assertNull(userProfiles.get(TEST_USER));
+		assertNull(userProfiles.get(TEST_USER));
+
+		// then
+		verify(userRepository, times(2)).findByUsername(TEST_USER);
+	}
+
+	/**
+	 * method to test getAll loads the misses with one query
+	 */
+	@Test
+	void test_getAllLoadsMisses() {
+		when(userRepository.findProfileByUsername(TEST_USER)).thenReturn(user(TEST_USER));
+		when(userRepository.findProfilesByUsernameIn(any())).thenReturn(Arrays.asList(user(TEST_USER_2)));
+
+		userProfiles.get(TEST_USER);
+
+		// then
+		assertEquals(2, userProfiles.getAll(Arrays.asList(TEST_USER, TEST_USER_2, null)).size());
+		verify(userRepository, times(1)).findProfilesByUsernameIn(any());
+	}
+
+	private UserDoc user(String username) {
+		UserDoc user = new UserDoc();
+		user.setUsername(username);
+		return user;
+	}
+}
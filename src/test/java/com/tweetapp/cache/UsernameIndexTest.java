@@ -0,0 +1,121 @@
+package com.tweetapp.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.repository.IUserRepository;
+
+/**
+ * junits for the in-memory username index
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class UsernameIndexTest {
+
+	@Mock
+	private IUserRepository userRepository;
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@InjectMocks
+	private UsernameIndex usernameIndex;
+
+	/**
+	 * method to test search matches the prefix ignoring case, in username order
+	 */
+	@Test
+	void test_searchMatchesPrefixIgnoringCase() {
+		usernameIndex.add(user("testUser"));
+		usernameIndex.add(user("Tester"));
+		usernameIndex.add(user("other"));
+
+		List<UserDoc> users = usernameIndex.search("TEST", 10);
+
+		// then
+		assertEquals(2, users.size());
+		assertEquals("Tester", users.get(0).getUsername());
+		assertEquals("testUser", users.get(1).getUsername());
+	}
+
+	/**
+	 * method to test search returns at most limit users
+	 */
+	@Test
+	void test_searchAppliesLimit() {
+		usernameIndex.add(user("user1"));
+		usernameIndex.add(user("user2"));
+		usernameIndex.add(user("user3"));
+
+		assertEquals(2, usernameIndex.search("user", 2).size());
+	}
+
+	/**
+	 * method to test the index only keeps the fields shown in search results
+	 */
+	@Test
+	void test_addDropsPrivateFields() {
+		UserDoc user = user("testUser");
+		user.setPassword("secret");
+
+		usernameIndex.add(user);
+
+		assertEquals(null, usernameIndex.search("test", 1).get(0).getPassword());
+	}
+
+	/**
+	 * method to test names are kept and users without names are indexed
+	 */
+	@Test
+	void test_addKeepsNamesAndAllowsMissingNames() {
+		UserDoc named = user("named");
+		named.setFirstName("first");
+		named.setLastName("last");
+
+		usernameIndex.add(named);
+		usernameIndex.add(user("unnamed"));
+
+		// then
+		assertEquals("first", usernameIndex.search("named", 1).get(0).getFirstName());
+		assertEquals("last", usernameIndex.search("named", 1).get(0).getLastName());
+		assertEquals(null, usernameIndex.search("unnamed", 1).get(0).getFirstName());
+	}
+
+	/**
+	 * method to test the index is loaded from mongo only when enabled
+	 */
+	@Test
+	void test_loadOnlyWhenEnabled() {
+		usernameIndex.load();
+		verify(userRepository, never()).findAllNames();
+
+		tweetsProperties.getSearch().setInMemoryIndex(true);
+		when(userRepository.findAllNames()).thenReturn(Arrays.asList(user("testUser")));
+
+		usernameIndex.load();
+
+		assertEquals(1, usernameIndex.size());
+	}
+
+	private UserDoc user(String username) {
+		UserDoc user = new UserDoc();
+		user.setUsername(username);
+		return user;
+	}
+}
@@ -0,0 +1,25 @@
+package com.tweetapp.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * junits for the virtual threads configuration
+ * 
+ * @author prateekpurohit
+ *
+ */
+class VirtualThreadsConfigTest {
+
+	@Test
+	void test_applicationTaskExecutorFallsBackBeforeJava21() {
+		assumeFalse(VirtualThreads.isSupported());
+
+		assertTrue(new VirtualThreadsConfig()
+				.applicationTaskExecutor(new TaskExecutorBuilder()) instanceof ThreadPoolTaskExecutor);
+	}
+}
@@ -0,0 +1,41 @@
+package com.tweetapp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * junits for the virtual thread executors, each case only runs on the jvm
+ * versions it applies to
+ * 
+ * @author prateekpurohit
+ *
+ */
+class VirtualThreadsTest {
+
+	@Test
+	void test_executorRunsTasksOnVirtualThreads() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+
+		CompletableFuture<Thread> thread = new CompletableFuture<>();
+		VirtualThreads.executor("test-vt-").execute(() -> thread.complete(Thread.currentThread()));
+
+		Thread worker = thread.get(5, TimeUnit.SECONDS);
+		assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(worker));
+		assertEquals("test-vt-0", worker.getName());
+	}
+
+	@Test
+	void test_threadFactoryFailsBeforeJava21() {
+		assumeFalse(VirtualThreads.isSupported());
+
+		assertThrows(IllegalStateException.class, () -> VirtualThreads.threadFactory("test-vt-"));
+	}
+}
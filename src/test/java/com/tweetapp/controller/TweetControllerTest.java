@@ -4,18 +4,20 @@ import static com.tweetapp.constants.TweetConstants.BASE_PATH;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -29,14 +31,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.cache.LikeWriteBehindBuffer;
 import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.document.TweetDoc;
 import com.tweetapp.document.UserDoc;
@@ -74,6 +79,9 @@ class TweetControllerTest {
 	@Autowired
 	private IUserRepository userRepo;
 
+	@Autowired
+	private LikeWriteBehindBuffer likeBuffer;
+
 	@Autowired
 	@Qualifier("passwordEncoder")
 	private PasswordEncoder passwordEncoder;
@@ -116,7 +124,6 @@ class TweetControllerTest {
 		tweet.setMessage("message");
 		tweet.setReply(true);
 		tweet.setLikesOnTweet(1L);
-		tweet.setReplies(new ArrayList<>());
 
 		// save in the database
 		testId = tweetRepository.save(tweet).getId();
@@ -129,7 +136,6 @@ class TweetControllerTest {
 		tweet2.setMessage("message");
 		tweet2.setReply(true);
 		tweet2.setLikesOnTweet(1L);
-		tweet2.setReplies(new ArrayList<>());
 		
 		// save in the database
 		testId2 = tweetRepository.save(tweet2).getId();
@@ -176,6 +182,22 @@ class TweetControllerTest {
 				.andExpect(status().isUnauthorized());
 	}
 
+	/**
+	 * method to test getAllTweets rejects a malformed page cursor
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void test_getAllTweetsThrowsExceptionOnInvalidCursor() throws Exception {
+
+		String fullToken = testUtil.getAuthToken();
+
+		// send the api request
+		mockMvc.perform(get("/all").param("before", "not-a-cursor").header("Authorization", fullToken)
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errorMessage", is(TweetConstants.INVALID_CURSOR_MSG)));
+	}
+
 
 	/**
 	 * method toe test getTweetsBysUsername rest api call
@@ -202,6 +224,89 @@ class TweetControllerTest {
 		assertEquals(expectedResult.size(), actualResult.length);
 	}
 
+	/**
+	 * method to test getTweetsByUsername pages through the tweets with the next
+	 * cursor
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void test_getTweetsByUsernamePaginates() throws Exception {
+
+		String fullToken = testUtil.getAuthToken();
+
+		// a second tweet so that a page of one has a next page
+		TweetDoc older = new TweetDoc();
+		older.setHandle(TEST_USER);
+		older.setCreatedAt(new Date(0));
+		older.setMessage("older message");
+		tweetRepository.save(older);
+
+		// first page
+		String cursor = mockMvc
+				.perform(get("/" + TEST_USER).param("limit", "1").header("Authorization", fullToken)
+						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.length()", is(1)))
+				.andExpect(jsonPath("$[0].message", is("message")))
+				.andReturn().getResponse().getHeader(TweetConstants.NEXT_CURSOR_HEADER);
+
+		assertNotNull(cursor);
+
+		// second page
+		mockMvc.perform(get("/" + TEST_USER).param("limit", "1").param("before", cursor)
+				.header("Authorization", fullToken).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].message", is("older message")));
+	}
+
+	/**
+	 * method to test getTweetsByUsername answers 304 to a current etag and a new
+	 * page once the user's tweets changed
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void test_getTweetsByUsernameHonoursEtag() throws Exception {
+
+		String fullToken = testUtil.getAuthToken();
+
+		String etag = mockMvc
+				.perform(get("/" + TEST_USER).header("Authorization", fullToken)
+						.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertNotNull(etag);
+
+		// nothing changed
+		mockMvc.perform(get("/" + TEST_USER).header("Authorization", fullToken).header(HttpHeaders.IF_NONE_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isNotModified());
+
+		// the tweet is updated
+		mockMvc.perform(put("/" + TEST_USER + "/update/" + testId).header("Authorization", fullToken)
+				.contentType(MediaType.APPLICATION_JSON).content(updateTweet())).andExpect(status().isOk());
+
+		mockMvc.perform(get("/" + TEST_USER).header("Authorization", fullToken).header(HttpHeaders.IF_NONE_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].message", is("new message for an old tweet")));
+	}
+
+	/**
+	 * method to test the export streams all the tweets of a user
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void test_exportTweetsByUsername() throws Exception {
+
+		String fullToken = testUtil.getAuthToken();
+
+		MvcResult result = mockMvc.perform(get("/" + TEST_USER + "/export").header("Authorization", fullToken))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(tweetRepository.findByHandle(TEST_USER).size())))
+				.andExpect(jsonPath("$[0].message", is("message")));
+	}
+
 	/**
 	 * method to test getTweetsByUsername throws exception on no tweets
 	 * 
@@ -308,6 +413,9 @@ class TweetControllerTest {
 		mockMvc.perform(post("/" + TEST_USER + "/like/" + testId2).header("Authorization", fullToken)
 				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
 
+		// write the buffered like
+		likeBuffer.flush();
+
 		// assert
 		Optional<TweetDoc> tweet = tweetRepository.findById(testId2);
 		assertEquals(2, tweet.get().getLikesOnTweet());
@@ -460,8 +568,29 @@ class TweetControllerTest {
 
 		// assert
 		TweetDoc tweet = tweetRepository.findById(testId).get();
-		assertEquals("this is a new tweet by newHandle", tweet.getReplies().get(0).getMessage());
+		assertEquals(1L, tweet.getReplyCount());
+		assertEquals("this is a new tweet by newHandle",
+				tweetRepository.findReplies(testId, null, 10).get(0).getMessage());
+
+	}
+
+	/**
+	 * test method getReplies
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void test_getReplies() throws Exception {
+
+		String fullToken = testUtil.getAuthToken();
+
+		mockMvc.perform(post("/" + TEST_USER + "/reply/" + testId).header("Authorization", fullToken)
+				.contentType(MediaType.APPLICATION_JSON).content(replyTweet())).andExpect(status().isOk());
 
+		mockMvc.perform(get("/" + testId + "/replies").header("Authorization", fullToken)
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].message", is("this is a new tweet by newHandle")))
+				.andExpect(jsonPath("$[0].parentId", is(testId)));
 	}
 
 	/**
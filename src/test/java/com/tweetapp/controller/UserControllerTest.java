@@ -23,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -244,7 +245,7 @@ class UserControllerTest {
 	 */
 	@Test
 	void test_getUsersByUsername_userExists() throws UnsupportedEncodingException, Exception {
-		String partialUsername = "us";
+		String partialUsername = "TEST";
 		String tokenString = testUtil.getAuthToken();
 
 		String response = mockMvc.perform(get("/user/search/" + partialUsername).header(AUTH_HEADER, tokenString))
@@ -252,7 +253,8 @@ class UserControllerTest {
 
 		// convert response to UserDoc list
 		UserDoc[] actualUsers = objectMapper.readValue(response, UserDoc[].class);
-		List<UserDoc> expectedUsers = userRepo.findByUsernameLike("*" + partialUsername + "*");
+		List<UserDoc> expectedUsers = userRepo.findByUsernameRange("test", "test" + Character.MAX_VALUE,
+				PageRequest.of(0, 20));
 
 		// assert
 		assertEquals(expectedUsers.size(), actualUsers.length);
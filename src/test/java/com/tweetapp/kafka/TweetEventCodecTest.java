@@ -0,0 +1,141 @@
+package com.tweetapp.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.exception.UnsupportedEventVersionException;
+import com.tweetapp.util.JsonViewUtil;
+
+/**
+ * junits for the tweet-events encoding
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TweetEventCodecTest {
+
+	private JsonViewUtil jsonViewUtil = new JsonViewUtil();
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@InjectMocks
+	private TweetEventCodec tweetEventCodec;
+
+	@BeforeEach
+	void setup() {
+		ReflectionTestUtils.setField(jsonViewUtil, "objectMapper", new ObjectMapper());
+		jsonViewUtil.initViews();
+		ReflectionTestUtils.setField(tweetEventCodec, "jsonViewUtil", jsonViewUtil);
+	}
+
+	@Test
+	void test_binaryRoundTrip() throws IOException {
+		TweetDoc tweet = tweet();
+
+		byte[] event = tweetEventCodec.encode(tweet);
+		TweetDoc result = tweetEventCodec.decode(event);
+
+		// then
+		assertEquals(TweetEventCodec.MAGIC, event[0]);
+		assertEquals(tweet.getId(), result.getId());
+		assertEquals(tweet.getMessage(), result.getMessage());
+		assertEquals(tweet.getCreatedAt(), result.getCreatedAt());
+		assertEquals(tweet.getHandle(), result.getHandle());
+		assertEquals(tweet.getAvatarUrl(), result.getAvatarUrl());
+		assertEquals(tweet.getLikesOnTweet(), result.getLikesOnTweet());
+		assertTrue(result.isReply());
+	}
+
+	@Test
+	void test_binaryRoundTripWithoutOptionalFields() throws IOException {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("not-an-object-id");
+		tweet.setLikesOnTweet(null);
+
+		TweetDoc result = tweetEventCodec.decode(tweetEventCodec.encode(tweet));
+
+		// then
+		assertEquals("not-an-object-id", result.getId());
+		assertNull(result.getMessage());
+		assertNull(result.getCreatedAt());
+		assertNull(result.getLikesOnTweet());
+	}
+
+	@Test
+	void test_binaryIsSmallerThanJson() throws IOException {
+		TweetDoc tweet = tweet();
+
+		byte[] binary = tweetEventCodec.encode(tweet);
+		tweetsProperties.getKafka().setEventFormat(TweetEventCodec.JSON_FORMAT);
+		byte[] json = tweetEventCodec.encode(tweet);
+
+		// then
+		assertTrue(binary.length < json.length, binary.length + " vs " + json.length);
+	}
+
+	/**
+	 * method to test events written before the binary format are still read
+	 */
+	@Test
+	void test_decodeReadsLegacyJson() throws IOException {
+		TweetDoc tweet = tweet();
+		byte[] legacy = jsonViewUtil.getTweetEventWriter().writeValueAsString(tweet)
+				.getBytes(StandardCharsets.UTF_8);
+
+		TweetDoc result = tweetEventCodec.decode(legacy);
+
+		// then
+		assertEquals(tweet.getMessage(), result.getMessage());
+		assertEquals(tweet.getCreatedAt(), result.getCreatedAt());
+	}
+
+	@Test
+	void test_decodeRejectsUnknownVersion() throws IOException {
+		byte[] event = tweetEventCodec.encode(tweet());
+		event[1] = 2;
+
+		// then
+		assertThrows(UnsupportedEventVersionException.class, () -> tweetEventCodec.decode(event));
+	}
+
+	@Test
+	void test_decodeRejectsTruncatedEvent() throws IOException {
+		byte[] event = tweetEventCodec.encode(tweet());
+
+		// then
+		assertThrows(IOException.class, () -> tweetEventCodec.decode(Arrays.copyOf(event, event.length - 5)));
+	}
+
+	private TweetDoc tweet() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId(new ObjectId().toHexString());
+		tweet.setMessage("this is a dummy message with some #tags");
+		tweet.setHandle("username");
+		tweet.setAvatarUrl("https://example.com/avatar.png");
+		tweet.setCreatedAt(new Date());
+		tweet.setLikesOnTweet(42L);
+		tweet.setReply(true);
+		return tweet;
+	}
+}
@@ -0,0 +1,105 @@
+package com.tweetapp.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.exception.UnsupportedEventVersionException;
+import com.tweetapp.service.ITweetService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the tweet-events listener
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TweetEventsConsumerTest {
+
+	@Mock
+	private ITweetService tweetService;
+
+	@Mock
+	private TweetEventCodec tweetEventCodec;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private TweetEventsConsumer tweetEventsConsumer;
+
+	private static final byte[] EVENT = new byte[] { 1 };
+	private static final byte[] MALFORMED_EVENT = new byte[] { 2 };
+	private static final byte[] NEWER_EVENT = new byte[] { 3 };
+
+	@BeforeEach
+	void setup() {
+		tweetEventsConsumer.registerMetrics();
+	}
+
+	/**
+	 * method to test malformed events are skipped and the rest is saved
+	 */
+	@Test
+	void test_onMessagesSkipsMalformedEvents() throws IOException {
+		TweetDoc tweet = new TweetDoc();
+
+		// when
+		when(tweetEventCodec.decode(EVENT)).thenReturn(tweet);
+		when(tweetEventCodec.decode(MALFORMED_EVENT)).thenThrow(new IOException("malformed tweet event"));
+
+		tweetEventsConsumer.onMessages(Arrays.asList(record(0, MALFORMED_EVENT), record(1, EVENT)));
+
+		// then
+		verify(tweetService, times(1)).addTweets(Arrays.asList(tweet));
+		assertEquals(1.0, meterRegistry.get("tweets.events.malformed").counter().count());
+	}
+
+	/**
+	 * method to test an event of a newer version fails the batch at that event
+	 * after saving the ones before it
+	 */
+	@Test
+	void test_onMessagesRetriesNewerVersion() throws IOException {
+		TweetDoc tweet = new TweetDoc();
+		ConsumerRecord<String, byte[]> newer = record(1, NEWER_EVENT);
+
+		// when
+		when(tweetEventCodec.decode(EVENT)).thenReturn(tweet);
+		when(tweetEventCodec.decode(NEWER_EVENT))
+				.thenThrow(new UnsupportedEventVersionException("unsupported tweet event version 2"));
+
+		BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+				() -> tweetEventsConsumer.onMessages(Arrays.asList(record(0, EVENT), newer, record(2, EVENT))));
+
+		// then
+		assertEquals(newer, exception.getRecord());
+		verify(tweetService, times(1)).addTweets(Collections.singletonList(tweet));
+		assertEquals(0.0, meterRegistry.get("tweets.events.malformed").counter().count());
+	}
+
+	private ConsumerRecord<String, byte[]> record(long offset, byte[] value) {
+		return new ConsumerRecord<>(TweetConstants.TWEET_EVENTS_TOPIC, 0, offset, null, value);
+	}
+}
@@ -0,0 +1,119 @@
+package com.tweetapp.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.cache.UserProfileCache;
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.document.UserDoc;
+import com.tweetapp.service.ITweetService;
+import com.tweetapp.stream.TweetStreamHub;
+
+/**
+ * junits for the listener feeding the live stream
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TweetStreamListenerTest {
+
+	@Mock
+	private TweetEventCodec tweetEventCodec;
+
+	@Mock
+	private ITweetService tweetService;
+
+	@Mock
+	private UserProfileCache userProfiles;
+
+	@Mock
+	private TweetStreamHub tweetStream;
+
+	@InjectMocks
+	private TweetStreamListener tweetStreamListener;
+
+	private static final String TEST_USER = "testUser";
+
+	/**
+	 * method to test decoded tweets are streamed with the avatar of their author
+	 */
+	@Test
+	void test_onMessagesPublishesTweets() throws IOException {
+		byte[] event = new byte[] { 1 };
+		TweetDoc tweet = new TweetDoc();
+		tweet.setHandle(TEST_USER);
+		UserDoc user = new UserDoc();
+		user.setUsername(TEST_USER);
+		user.setAvatarUrl("url");
+
+		// when
+		when(tweetStream.getSubscriberCount()).thenReturn(1);
+		when(tweetEventCodec.decode(event)).thenReturn(tweet);
+		when(tweetService.validTweets(Arrays.asList(tweet))).thenReturn(Arrays.asList(tweet));
+		when(userProfiles.getAll(any())).thenReturn(Collections.singletonMap(TEST_USER, user));
+
+		tweetStreamListener.onMessages(
+				Arrays.asList(new ConsumerRecord<>(TweetConstants.TWEET_EVENTS_TOPIC, 0, 0L, TEST_USER, event)));
+
+		// then
+		verify(tweetStream, times(1)).publish(Arrays.asList(tweet));
+		assertEquals("url", tweet.getAvatarUrl());
+	}
+
+	/**
+	 * method to test tweets which are not persisted are not streamed either
+	 */
+	@Test
+	void test_onMessagesSkipsInvalidTweets() throws IOException {
+		byte[] event = new byte[] { 1 };
+		TweetDoc tweet = new TweetDoc();
+		tweet.setHandle(TEST_USER);
+
+		// when
+		when(tweetStream.getSubscriberCount()).thenReturn(1);
+		when(tweetEventCodec.decode(event)).thenReturn(tweet);
+		when(tweetService.validTweets(Arrays.asList(tweet))).thenReturn(new ArrayList<>());
+
+		tweetStreamListener.onMessages(
+				Arrays.asList(new ConsumerRecord<>(TweetConstants.TWEET_EVENTS_TOPIC, 0, 0L, TEST_USER, event)));
+
+		// then
+		verify(tweetStream, times(1)).publish(new ArrayList<>());
+	}
+
+	/**
+	 * method to test nothing is decoded without connections
+	 */
+	@Test
+	void test_onMessagesWithoutSubscribers() throws IOException {
+		byte[] event = new byte[] { 1 };
+
+		// when
+		when(tweetStream.getSubscriberCount()).thenReturn(0);
+
+		tweetStreamListener.onMessages(
+				Arrays.asList(new ConsumerRecord<>(TweetConstants.TWEET_EVENTS_TOPIC, 0, 0L, TEST_USER, event)));
+
+		// then
+		verify(tweetEventCodec, never()).decode(any());
+		verify(tweetStream, never()).publish(any());
+	}
+}
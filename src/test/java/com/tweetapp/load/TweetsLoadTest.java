@@ -0,0 +1,357 @@
+package com.tweetapp.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * end-to-end load test of the tweets and users endpoints on an embedded kafka
+ * broker and an embedded mongod, so the whole post -> tweet-events -> consumer
+ * -> mongo pipeline runs on one box without infrastructure. synthetic users
+ * register, log in, follow each other and then run a random read / write mix
+ * for a fixed time. latency percentiles are reported per endpoint along with
+ * the ingest lag of posted tweets (post accepted -> tweet in mongo).
+ * 
+ * run with mvn -Pload test, sized with -Dload.users, -Dload.threads,
+ * -Dload.seconds and -Dload.writePercent
+ * 
+ * @author prateekpurohit
+ *
+ */
+@Slf4j
+@Tag("load")
+@DirtiesContext
+@EmbeddedKafka(partitions = 6, topics = TweetConstants.TWEET_EVENTS_TOPIC)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"spring.mongodb.embedded.version=5.0.5", "spring.data.mongodb.port=0",
+		"spring.data.mongodb.database=tweetsLoadTest",
+		"spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+		"spring.kafka.consumer.auto-offset-reset=earliest", "logging.level.com.tweetapp=WARN" })
+class TweetsLoadTest {
+
+	// constants
+	private static final String BASE_PATH = "/api/v1.0/tweets";
+	private static final String PASSWORD = "load@123456";
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	private final int users = Integer.getInteger("load.users", 50);
+	private final int threads = Integer.getInteger("load.threads", 16);
+	private final int seconds = Integer.getInteger("load.seconds", 30);
+	private final int writePercent = Integer.getInteger("load.writePercent", 20);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+	private final Histogram ingestLag = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+	// message of every posted tweet -> nano time its post was accepted
+	private final Map<String, Long> pendingTweets = new ConcurrentHashMap<>();
+
+	private final List<String> usernames = new ArrayList<>();
+
+	private final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+	// ids of seeded tweets by author, liked during the run
+	private final List<String[]> likeTargets = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	void test_mixedLoad() throws Exception {
+
+		seedUsers();
+		seedTweets();
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		Thread ingestPoller = new Thread(this::pollIngested, "ingest-poller");
+		ingestPoller.start();
+
+		for (int i = 0; i < threads; i++) {
+			workers.execute(() -> {
+				while (System.nanoTime() < deadline) {
+					runRandomRequest();
+				}
+			});
+		}
+
+		workers.shutdown();
+		assertTrue(workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS));
+
+		// every posted tweet has to reach mongo
+		long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while (!pendingTweets.isEmpty() && System.nanoTime() < drainDeadline) {
+			Thread.sleep(100);
+		}
+		ingestPoller.interrupt();
+		ingestPoller.join();
+
+		report();
+
+		assertEquals(0, pendingTweets.size(), "tweets never ingested");
+		assertEquals(0, errors.values().stream().mapToLong(AtomicLong::get).sum(), "failed requests " + errors);
+	}
+
+	/**
+	 * method to register and log in the synthetic users and let everyone follow
+	 * a few others
+	 */
+	private void seedUsers() throws IOException, InterruptedException {
+		for (int i = 0; i < users; i++) {
+			String username = "load" + i;
+			usernames.add(username);
+
+			String user = objectMapper.createObjectNode().put("username", username).put("password", PASSWORD)
+					.put("firstName", "load").put("lastName", "user" + i).put("email", username + "@load.test")
+					.put("contactNumber", 9000000000L + i).toString();
+			send("POST /register", post("/register", user, null), 201);
+
+			String login = objectMapper.createObjectNode().put("username", username).put("password", PASSWORD)
+					.toString();
+			HttpResponse<String> response = send("POST /login", post("/login", login, null), 200);
+			tokens.put(username, "Bearer " + objectMapper.readTree(response.body()).get("authToken").asText());
+		}
+
+		for (String username : usernames) {
+			for (int i = 0; i < Math.min(10, users - 1); i++) {
+				String followee = randomUserOtherThan(username);
+				send("POST /{username}/follow/{followee}",
+						post("/" + username + "/follow/" + followee, "", tokens.get(username)), -1);
+			}
+		}
+	}
+
+	/**
+	 * method to post one tweet per user and wait for them, they are the targets
+	 * of the likes during the run
+	 */
+	private void seedTweets() throws IOException, InterruptedException {
+		for (String username : usernames) {
+			postTweet(username);
+		}
+
+		while (!pendingTweets.isEmpty()) {
+			collectIngested();
+			Thread.sleep(50);
+		}
+
+		HttpResponse<String> response = send("GET /all", get("/all?limit=200", usernames.get(0)), 200);
+		for (JsonNode tweet : objectMapper.readTree(response.body())) {
+			likeTargets.add(new String[] { tweet.get("id").asText(), tweet.get("handle").asText() });
+		}
+	}
+
+	private void runRandomRequest() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String username = usernames.get(random.nextInt(usernames.size()));
+
+		try {
+			if (random.nextInt(100) < writePercent) {
+				if (random.nextBoolean()) {
+					postTweet(username);
+				} else {
+					String[] target = likeTargets.get(random.nextInt(likeTargets.size()));
+					if (!target[1].equals(username)) {
+						send("POST /{username}/like/{id}",
+								post("/" + username + "/like/" + target[0], "", tokens.get(username)), 200);
+					}
+				}
+				return;
+			}
+
+			switch (random.nextInt(5)) {
+			case 0:
+				send("GET /all", get("/all", username), 200);
+				break;
+			case 1:
+				send("GET /{username}", get("/" + randomUserOtherThan(username), username), -1);
+				break;
+			case 2:
+				send("GET /{username}/home", get("/" + username + "/home", username), -1);
+				break;
+			case 3:
+				send("GET /user/search/{username}", get("/user/search/load" + random.nextInt(10), username), 200);
+				break;
+			default:
+				send("GET /users/all", get("/users/all", username), 200);
+				break;
+			}
+		} catch (IOException e) {
+			errors.computeIfAbsent(e.getClass().getSimpleName(), key -> new AtomicLong()).incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void postTweet(String username) throws IOException, InterruptedException {
+		String message = "load tweet " + UUID.randomUUID();
+		String body = objectMapper.createObjectNode().put("tweetMessage", message).toString();
+
+		HttpResponse<String> response = send("POST /{username}/add",
+				post("/" + username + "/add", body, tokens.get(username)), 201);
+		if (response.statusCode() == 201) {
+			pendingTweets.put(message, System.nanoTime());
+		}
+	}
+
+	/**
+	 * method to send a request and record its latency under the endpoint name
+	 * 
+	 * @param endpoint
+	 * @param request
+	 * @param expectedStatus expected status code, -1 for any non 5xx
+	 * @return
+	 */
+	private HttpResponse<String> send(String endpoint, HttpRequest request, int expectedStatus)
+			throws IOException, InterruptedException {
+
+		long start = System.nanoTime();
+		HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+		latencies.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+				.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+
+		boolean failed = expectedStatus == -1 ? response.statusCode() >= 500 : response.statusCode() != expectedStatus;
+		if (failed) {
+			errors.computeIfAbsent(endpoint + " " + response.statusCode(), key -> new AtomicLong()).incrementAndGet();
+		}
+
+		return response;
+	}
+
+	/**
+	 * polls mongo for the posted tweets until interrupted
+	 */
+	private void pollIngested() {
+		while (!Thread.currentThread().isInterrupted()) {
+			collectIngested();
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * method to record the ingest lag of the pending tweets which reached mongo
+	 */
+	private void collectIngested() {
+		List<String> pending = new ArrayList<>(pendingTweets.keySet());
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		long now = System.nanoTime();
+
+		for (int from = 0; from < pending.size(); from += 500) {
+			Query query = Query.query(
+					Criteria.where("message").in(pending.subList(from, Math.min(pending.size(), from + 500))));
+			query.fields().include("message");
+
+			for (TweetDoc tweet : mongoTemplate.find(query, TweetDoc.class)) {
+				Long accepted = pendingTweets.remove(tweet.getMessage());
+				if (accepted != null) {
+					ingestLag.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - accepted),
+							HIGHEST_TRACKABLE_MICROS));
+				}
+			}
+		}
+	}
+
+	private void report() {
+		StringBuilder table = new StringBuilder(String.format("%n%-32s %8s %9s %9s %9s %9s%n", "endpoint", "count",
+				"p50 ms", "p99 ms", "p999 ms", "max ms"));
+
+		new TreeMap<>(latencies).forEach((endpoint, histogram) -> table.append(row(endpoint, histogram)));
+		table.append(row("ingest lag (post -> mongo)", ingestLag));
+
+		log.warn("load test: {} users, {} threads, {} s, {}% writes, errors {}{}", users, threads, seconds,
+				writePercent, errors, table);
+	}
+
+	private String row(String name, Histogram histogram) {
+		return String.format("%-32s %8d %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+				histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+				histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+	}
+
+	private String randomUserOtherThan(String username) {
+		String other;
+		do {
+			other = usernames.get(ThreadLocalRandom.current().nextInt(usernames.size()));
+		} while (other.equals(username) && usernames.size() > 1);
+		return other;
+	}
+
+	private HttpRequest get(String path, String username) {
+		return HttpRequest.newBuilder(uri(path)).header("Authorization", tokens.get(username)).GET().build();
+	}
+
+	private HttpRequest post(String path, String body, String token) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json")
+				.POST(BodyPublishers.ofString(body));
+		if (token != null) {
+			builder.header("Authorization", token);
+		}
+		return builder.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + BASE_PATH + path);
+	}
+}
@@ -0,0 +1,76 @@
+package com.tweetapp.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServlet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the per request mongo command counter
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class MongoCommandsPerRequestTest {
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private MongoCommandsPerRequest mongoCommandsPerRequest;
+
+	private static final String TEST_PATTERN = "/{username}/home";
+
+	/**
+	 * method to test the commands sent while serving a request are recorded under
+	 * its endpoint
+	 */
+	@Test
+	void test_recordsCommandsPerEndpoint() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/testUser/home");
+
+		Filter handler = (req, res, chain) -> {
+			req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, TEST_PATTERN);
+			mongoCommandsPerRequest.commandStarted(null);
+			mongoCommandsPerRequest.commandStarted(null);
+		};
+
+		mongoCommandsPerRequest.doFilter(request, new MockHttpServletResponse(),
+				new MockFilterChain(new HttpServlet() {
+					private static final long serialVersionUID = 1L;
+				}, handler));
+
+		// then
+		DistributionSummary summary = meterRegistry.get("tweets.mongo.commands.per.request").tag("uri", TEST_PATTERN)
+				.summary();
+		assertEquals(1, summary.count());
+		assertEquals(2, summary.totalAmount());
+	}
+
+	/**
+	 * method to test commands outside of a request are ignored
+	 */
+	@Test
+	void test_ignoresCommandsOutsideRequests() {
+		mongoCommandsPerRequest.commandStarted(null);
+
+		// then
+		assertNull(meterRegistry.find("tweets.mongo.commands.per.request").summary());
+	}
+}
@@ -0,0 +1,136 @@
+package com.tweetapp.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * junits for the memory-mapped outbox log
+ * 
+ * @author prateekpurohit
+ *
+ */
+class OutboxLogTest {
+
+	@TempDir
+	Path dir;
+
+	private OutboxLog outboxLog;
+
+	private static final int SEGMENT_BYTES = 256;
+	private static final String TEST_USER = "testUser";
+
+	@AfterEach
+	void tearDown() throws IOException {
+		outboxLog.close();
+	}
+
+	/**
+	 * method to test records are read back in order with their key and value
+	 */
+	@Test
+	void test_readReturnsAppendedRecords() throws Exception {
+		outboxLog = new OutboxLog(dir, SEGMENT_BYTES, false);
+
+		outboxLog.append(TEST_USER, bytes("first"));
+		outboxLog.append(TEST_USER, bytes("second"));
+
+		List<OutboxRecord> records = outboxLog.read(10, 0);
+
+		// then
+		assertEquals(2, records.size());
+		assertEquals(TEST_USER, records.get(0).getKey());
+		assertArrayEquals(bytes("first"), records.get(0).getValue());
+		assertArrayEquals(bytes("second"), records.get(1).getValue());
+		assertEquals(2, outboxLog.getPending());
+		assertTrue(outboxLog.read(10, 0).isEmpty());
+	}
+
+	/**
+	 * method to test a rewind hands out the records after the acknowledged ones
+	 * again
+	 */
+	@Test
+	void test_rewindReturnsUnacknowledgedRecords() throws Exception {
+		outboxLog = new OutboxLog(dir, SEGMENT_BYTES, false);
+		outboxLog.append(TEST_USER, bytes("first"));
+		outboxLog.append(TEST_USER, bytes("second"));
+
+		outboxLog.acknowledge(outboxLog.read(1, 0));
+		outboxLog.read(10, 0);
+		outboxLog.rewind();
+
+		List<OutboxRecord> records = outboxLog.read(10, 0);
+
+		// then
+		assertEquals(1, records.size());
+		assertArrayEquals(bytes("second"), records.get(0).getValue());
+		assertEquals(1, outboxLog.getPending());
+	}
+
+	/**
+	 * method to test full segments roll over and are deleted once acknowledged
+	 */
+	@Test
+	void test_acknowledgedSegmentsAreDeleted() throws Exception {
+		outboxLog = new OutboxLog(dir, SEGMENT_BYTES, false);
+		for (int i = 0; i < 20; i++) {
+			outboxLog.append(TEST_USER, bytes("tweet number " + i));
+		}
+		assertTrue(segments().size() > 1);
+
+		List<OutboxRecord> records = outboxLog.read(100, 0);
+		outboxLog.acknowledge(records);
+
+		// then
+		assertEquals(20, records.size());
+		assertArrayEquals(bytes("tweet number 19"), records.get(19).getValue());
+		assertEquals(1, segments().size());
+		assertEquals(0, outboxLog.getPending());
+	}
+
+	/**
+	 * method to test a reopened log resumes after the checkpoint and appends after
+	 * the records left by the last run
+	 */
+	@Test
+	void test_reopenResumesFromCheckpoint() throws Exception {
+		outboxLog = new OutboxLog(dir, SEGMENT_BYTES, false);
+		outboxLog.append(TEST_USER, bytes("first"));
+		outboxLog.append(TEST_USER, bytes("second"));
+		outboxLog.acknowledge(outboxLog.read(1, 0));
+		outboxLog.close();
+
+		outboxLog = new OutboxLog(dir, SEGMENT_BYTES, false);
+		outboxLog.append(TEST_USER, bytes("third"));
+
+		List<OutboxRecord> records = outboxLog.read(10, 0);
+
+		// then
+		assertEquals(2, records.size());
+		assertArrayEquals(bytes("second"), records.get(0).getValue());
+		assertArrayEquals(bytes("third"), records.get(1).getValue());
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> paths = Files.list(dir)) {
+			return paths.filter(path -> path.toString().endsWith(".log")).collect(Collectors.toList());
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,136 @@
+package com.tweetapp.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.kafka.TweetEventProducer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for publishing tweets through the outbox
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TweetOutboxTest {
+
+	@Mock
+	private TweetEventProducer tweetEventProducer;
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private TweetOutbox tweetOutbox;
+
+	@TempDir
+	Path dir;
+
+	private static final String TEST_USER = "testUser";
+	private static final byte[] TEST_EVENT = { 1, 2, 3 };
+
+	@BeforeEach
+	void setup() {
+		tweetsProperties.getOutbox().setDir(dir.toString());
+		tweetsProperties.getOutbox().setRetryBackoffMs(10);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		tweetOutbox.close();
+	}
+
+	/**
+	 * method to test a published tweet is relayed to kafka and acknowledged
+	 */
+	@Test
+	void test_publishRelaysToKafka() throws Exception {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setHandle(TEST_USER);
+
+		SettableListenableFuture<SendResult<String, byte[]>> sent = new SettableListenableFuture<>();
+		sent.set(null);
+
+		// when
+		when(tweetEventProducer.eventKey(tweet)).thenReturn(TEST_USER);
+		when(tweetEventProducer.eventValue(tweet)).thenReturn(TEST_EVENT);
+		when(tweetEventProducer.send(eq(TEST_USER), aryEq(TEST_EVENT))).thenReturn(sent);
+
+		tweetOutbox.open();
+		tweetOutbox.publish(tweet);
+
+		// then
+		verify(tweetEventProducer, timeout(2000)).send(eq(TEST_USER), aryEq(TEST_EVENT));
+
+		// the relay finishes its batch before closing
+		tweetOutbox.close();
+		assertEquals(1, meterRegistry.get("tweets.outbox.relayed").counter().count());
+	}
+
+	/**
+	 * method to test a failed send is sent again
+	 */
+	@Test
+	void test_failedSendIsRetried() throws Exception {
+		TweetDoc tweet = new TweetDoc();
+
+		SettableListenableFuture<SendResult<String, byte[]>> failed = new SettableListenableFuture<>();
+		failed.setException(new IllegalStateException("broker down"));
+		SettableListenableFuture<SendResult<String, byte[]>> sent = new SettableListenableFuture<>();
+		sent.set(null);
+
+		// when
+		when(tweetEventProducer.eventKey(tweet)).thenReturn(TEST_USER);
+		when(tweetEventProducer.eventValue(tweet)).thenReturn(TEST_EVENT);
+		when(tweetEventProducer.send(eq(TEST_USER), any())).thenReturn(failed, sent);
+
+		tweetOutbox.open();
+		tweetOutbox.publish(tweet);
+
+		// then
+		verify(tweetEventProducer, timeout(2000).times(2)).send(eq(TEST_USER), aryEq(TEST_EVENT));
+	}
+
+	/**
+	 * method to test tweets go straight to kafka when the outbox is disabled
+	 */
+	@Test
+	void test_publishSendsDirectlyWhenDisabled() throws Exception {
+		tweetsProperties.getOutbox().setEnabled(false);
+		TweetDoc tweet = new TweetDoc();
+
+		tweetOutbox.open();
+		tweetOutbox.publish(tweet);
+
+		// then
+		verify(tweetEventProducer, times(1)).sendTweetEvent(tweet);
+	}
+}
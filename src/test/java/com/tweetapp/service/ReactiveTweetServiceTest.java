@@ -0,0 +1,124 @@
+package com.tweetapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.exception.NoTweetsFoundException;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
+import com.tweetapp.outbox.TweetOutbox;
+import com.tweetapp.repository.IReactiveTweetRepository;
+import com.tweetapp.service.impl.ReactiveTweetServiceImpl;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+/**
+ * junits for the reactive tweet service
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveTweetServiceTest {
+
+	@Mock
+	private IReactiveTweetRepository reactiveTweetRepository;
+
+	@Mock
+	private TweetOutbox tweetOutbox;
+
+	@Spy
+	private TweetsProperties tweetsProperties;
+
+	@InjectMocks
+	private ReactiveTweetServiceImpl reactiveTweetService;
+
+	@Test
+	void test_getAllTweetsReturnsPageWithNextCursor() {
+		TweetDoc first = tweet("62efd6a2c1b4a3263a5f3e6f", 2000L);
+		TweetDoc second = tweet("62efd6a2c1b4a3263a5f3e70", 1000L);
+
+		when(reactiveTweetRepository.findTimeline(isNull(), eq(2)))
+				.thenReturn(Flux.just(first, second));
+
+		TweetPage page = reactiveTweetService.getAllTweets(null, 1).block();
+
+		assertNotNull(page);
+		assertEquals(Arrays.asList(first), page.getTweets());
+		assertEquals(new TimelineCursor(first.getCreatedAt(), first.getId()), page.getNextCursor());
+	}
+
+	@Test
+	void test_getTweetsByUsernameErrorsWhenNoTweets() {
+		when(reactiveTweetRepository.findUserTimeline("test", null, 51)).thenReturn(Flux.empty());
+
+		// block() wraps checked exceptions, the cause is the service error
+		Throwable exception = Exceptions.unwrap(assertThrows(RuntimeException.class,
+				() -> reactiveTweetService.getTweetsByUsername("test", null, null).block()));
+		assertTrue(exception instanceof NoTweetsFoundException);
+		assertEquals(TweetConstants.TWEETS_NOT_FOUND_MESSAGE, exception.getMessage());
+	}
+
+	@Test
+	void test_getTweetsByUsernameReturnsEmptyLastPage() {
+		TimelineCursor cursor = new TimelineCursor(new Date(), "62efd6a2c1b4a3263a5f3e6f");
+		when(reactiveTweetRepository.findUserTimeline("test", cursor, 51)).thenReturn(Flux.empty());
+
+		TweetPage page = reactiveTweetService.getTweetsByUsername("test", cursor, null).block();
+
+		assertNotNull(page);
+		assertEquals(0, page.getTweets().size());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	void test_postTweetPublishesThroughOutbox() throws IOException {
+		TweetDoc tweet = tweet("62efd6a2c1b4a3263a5f3e6f", 1000L);
+
+		reactiveTweetService.postTweet(tweet).block();
+
+		verify(tweetOutbox).publish(tweet);
+	}
+
+	@Test
+	void test_postTweetErrorsWhenOutboxFails() throws IOException {
+		TweetDoc tweet = tweet("62efd6a2c1b4a3263a5f3e6f", 1000L);
+		doThrow(new IOException("disk full")).when(tweetOutbox).publish(tweet);
+
+		Throwable exception = assertThrows(UncheckedIOException.class,
+				() -> reactiveTweetService.postTweet(tweet).block());
+		assertEquals("disk full", exception.getCause().getMessage());
+	}
+
+	private TweetDoc tweet(String id, long createdAt) {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId(id);
+		tweet.setHandle("test");
+		tweet.setCreatedAt(new Date(createdAt));
+		return tweet;
+	}
+}
@@ -1,34 +1,68 @@
 package com.tweetapp.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.security.authentication.BadCredentialsException;
-
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tweetapp.cache.HomeTimeline;
+import com.tweetapp.cache.HomeTimelineCache;
+import com.tweetapp.cache.LikeWriteBehindBuffer;
+import com.tweetapp.cache.TimelineVersions;
+import com.tweetapp.cache.TweetCache;
+import com.tweetapp.cache.UserProfileCache;
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.FollowDoc;
 import com.tweetapp.document.TweetDoc;
 import com.tweetapp.document.UserDoc;
 import com.tweetapp.exception.InvalidTokenException;
 import com.tweetapp.exception.InvalidTweetException;
 import com.tweetapp.exception.InvalidUserException;
 import com.tweetapp.exception.NoTweetsFoundException;
+import com.tweetapp.model.TimelineCursor;
+import com.tweetapp.model.TweetPage;
+import com.tweetapp.repository.IFollowRepository;
 import com.tweetapp.repository.ITweetRepository;
 import com.tweetapp.repository.IUserRepository;
 import com.tweetapp.service.impl.TweetServiceImpl;
+import com.tweetapp.util.JsonViewUtil;
 import com.tweetapp.util.JwtUtil;
 import com.tweetapp.util.TweetUtil;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * task-2 junits for tweetService
  * 
@@ -49,6 +83,30 @@ class TweetServiceTest {
 
 	@Mock 
 	private IUserRepository userRepository;
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Mock
+	private LikeWriteBehindBuffer likeBuffer;
+
+	@Mock
+	private IFollowRepository followRepository;
+
+	@Mock
+	private HomeTimelineCache homeTimelines;
+
+	@Spy
+	private TweetCache tweetCache = new TweetCache();
+
+	@Spy
+	private UserProfileCache userProfiles = new UserProfileCache();
+
+	@Mock
+	private JsonViewUtil jsonViewUtil;
+
+	@Mock
+	private TimelineVersions timelineVersions;
 	
 	@InjectMocks
 	private TweetServiceImpl tweetService;
@@ -58,6 +116,20 @@ class TweetServiceTest {
 	private static final String TEST_USER_2 = "testUser2";
 	private static final String TEST_ID = "testId";
 
+	@BeforeEach
+	void setup() {
+		// a real cache in front of the mocked repository
+		ReflectionTestUtils.setField(tweetCache, "tweetRepository", tweetRepository);
+		ReflectionTestUtils.setField(tweetCache, "tweetsProperties", tweetsProperties);
+		ReflectionTestUtils.setField(tweetCache, "meterRegistry", new SimpleMeterRegistry());
+		tweetCache.initTweets();
+
+		ReflectionTestUtils.setField(userProfiles, "userRepository", userRepository);
+		ReflectionTestUtils.setField(userProfiles, "tweetsProperties", tweetsProperties);
+		ReflectionTestUtils.setField(userProfiles, "meterRegistry", new SimpleMeterRegistry());
+		userProfiles.initUsers();
+	}
+
 	/**
 	 * method to test getAllTweets
 	 * 
@@ -68,12 +140,58 @@ class TweetServiceTest {
 	void test_getAllTweetsCallsRepo() throws InvalidTokenException, NoTweetsFoundException {
 
 		// when
-		when(tweetRepository.findAll()).thenReturn(Arrays.asList(new TweetDoc()));
+		when(tweetRepository.findTimeline(null, 51)).thenReturn(Arrays.asList(new TweetDoc()));
+
+		TweetPage page = tweetService.getAllTweets(null, null);
+
+		// then
+		verify(tweetRepository, times(1)).findTimeline(null, 51);
+		assertNull(page.getNextCursor());
+	}
+
+	/**
+	 * method to test getAllTweets returns the cursor of the last tweet when there
+	 * are more tweets than the page size
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws NoTweetsFoundException
+	 */
+	@Test
+	void test_getAllTweetsReturnsNextCursor() throws InvalidTokenException, NoTweetsFoundException {
+		Date createdAt = new Date();
+		TweetDoc first = new TweetDoc();
+		first.setId("id1");
+		first.setCreatedAt(createdAt);
+		TweetDoc second = new TweetDoc();
+		second.setId("id2");
+		second.setCreatedAt(createdAt);
+
+		// when
+		when(tweetRepository.findTimeline(null, 2)).thenReturn(Arrays.asList(first, second));
+
+		TweetPage page = tweetService.getAllTweets(null, 1);
+
+		// then
+		assertEquals(1, page.getTweets().size());
+		assertEquals(new TimelineCursor(createdAt, "id1"), page.getNextCursor());
+	}
+
+	/**
+	 * method to test getAllTweets caps the page size asked by the client
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws NoTweetsFoundException
+	 */
+	@Test
+	void test_getAllTweetsCapsPageSize() throws InvalidTokenException, NoTweetsFoundException {
+
+		// when
+		when(tweetRepository.findTimeline(null, 201)).thenReturn(Arrays.asList(new TweetDoc()));
 
-		tweetService.getAllTweets();
+		tweetService.getAllTweets(null, 100000);
 
 		// then
-		verify(tweetRepository, times(1)).findAll();
+		verify(tweetRepository, times(1)).findTimeline(null, 201);
 	}
 
 	/**
@@ -83,10 +201,76 @@ class TweetServiceTest {
 	void test_getAllTweetsThrowsException() {
 
 		// when
-		when(tweetRepository.findAll()).thenReturn(new ArrayList<>());
+		when(tweetRepository.findTimeline(null, 51)).thenReturn(new ArrayList<>());
+
+		// then
+		assertThrows(NoTweetsFoundException.class, () -> tweetService.getAllTweets(null, null));
+	}
+
+	/**
+	 * method to test getAllTweets returns an empty page past the last tweet
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws NoTweetsFoundException
+	 */
+	@Test
+	void test_getAllTweetsReturnsEmptyLastPage() throws InvalidTokenException, NoTweetsFoundException {
+		TimelineCursor cursor = new TimelineCursor(new Date(), TEST_ID);
+		List<TweetDoc> empty = new ArrayList<>();
+
+		// when
+		when(tweetRepository.findTimeline(cursor, 51)).thenReturn(empty);
+
+		// then
+		assertEquals(0, tweetService.getAllTweets(cursor, null).getTweets().size());
+	}
+
+	/**
+	 * method to test getReplies
+	 * 
+	 * @throws NoTweetsFoundException
+	 */
+	@Test
+	void test_getRepliesCallsRepo() throws NoTweetsFoundException {
+
+		// when
+		when(tweetRepository.findReplies(TEST_ID, null, 51)).thenReturn(Arrays.asList(new TweetDoc()));
+
+		TweetPage page = tweetService.getReplies(TEST_ID, null, null);
+
+		// then
+		assertEquals(1, page.getTweets().size());
+		assertNull(page.getNextCursor());
+	}
+
+	/**
+	 * method to test getReplies returns an empty page for a tweet without replies
+	 * 
+	 * @throws NoTweetsFoundException
+	 */
+	@Test
+	void test_getRepliesReturnsEmptyPage() throws NoTweetsFoundException {
+
+		// when
+		when(tweetRepository.findReplies(TEST_ID, null, 51)).thenReturn(new ArrayList<>());
+		when(tweetRepository.existsById(TEST_ID)).thenReturn(true);
+
+		// then
+		assertEquals(0, tweetService.getReplies(TEST_ID, null, null).getTweets().size());
+	}
+
+	/**
+	 * method to test getReplies throws exception when the tweet does not exist
+	 */
+	@Test
+	void test_getRepliesThrowsExceptionOnNoTweet() {
+
+		// when
+		when(tweetRepository.findReplies(TEST_ID, null, 51)).thenReturn(new ArrayList<>());
+		when(tweetRepository.existsById(TEST_ID)).thenReturn(false);
 
 		// then
-		assertThrows(NoTweetsFoundException.class, () -> tweetService.getAllTweets());
+		assertThrows(NoTweetsFoundException.class, () -> tweetService.getReplies(TEST_ID, null, null));
 	}
 
 	/**
@@ -99,12 +283,13 @@ class TweetServiceTest {
 	void test_getTweetsByUsernameCallsRepo() throws NoTweetsFoundException, InvalidTokenException {
 
 		// when
-		when(tweetRepository.findByHandle(TEST_USER)).thenReturn(Arrays.asList(new TweetDoc()));
+		when(tweetRepository.findUserTimeline(TEST_USER, null, 51)).thenReturn(Arrays.asList(new TweetDoc()));
 
-		tweetService.getTweetsByUsername(TEST_USER);
+		TweetPage page = tweetService.getTweetsByUsername(TEST_USER, null, null);
 
 		// then
-		verify(tweetRepository, times(1)).findByHandle(TEST_USER);
+		verify(tweetRepository, times(1)).findUserTimeline(TEST_USER, null, 51);
+		assertNull(page.getNextCursor());
 
 	}
 
@@ -117,10 +302,35 @@ class TweetServiceTest {
 	@Test
 	void test_getTweetsByUsernameThrowsException() throws NoTweetsFoundException, InvalidTokenException {
 		// when
-		when(tweetRepository.findByHandle(TEST_USER)).thenReturn(new ArrayList<>());
+		when(tweetRepository.findUserTimeline(TEST_USER, null, 51)).thenReturn(new ArrayList<>());
+
+		// then
+		assertThrows(NoTweetsFoundException.class, () -> tweetService.getTweetsByUsername(TEST_USER, null, null));
+	}
+
+	/**
+	 * method to test getTweetsByUsername returns the cursor of the last tweet on a
+	 * full page
+	 * 
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidTokenException
+	 */
+	@Test
+	void test_getTweetsByUsernameReturnsNextCursor() throws NoTweetsFoundException, InvalidTokenException {
+		Date createdAt = new Date();
+		TweetDoc first = new TweetDoc();
+		first.setId("id1");
+		first.setCreatedAt(createdAt);
+		TimelineCursor before = new TimelineCursor(createdAt, "id0");
+
+		// when
+		when(tweetRepository.findUserTimeline(TEST_USER, before, 2)).thenReturn(Arrays.asList(first, new TweetDoc()));
+
+		TweetPage page = tweetService.getTweetsByUsername(TEST_USER, before, 1);
 
 		// then
-		assertThrows(NoTweetsFoundException.class, () -> tweetService.getTweetsByUsername(TEST_USER));
+		assertEquals(1, page.getTweets().size());
+		assertEquals(new TimelineCursor(createdAt, "id1"), page.getNextCursor());
 	}
 
 	/**
@@ -146,6 +356,30 @@ class TweetServiceTest {
 		verify(tweetRepository, times(1)).delete(tweet);
 	}
 
+	/**
+	 * method to test deleteTweetById decrements the reply count of the parent
+	 * when deleting a reply
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws NoTweetsFoundException
+	 */
+	@Test
+	void test_deleteTweetByIdDecrementsParentReplies() throws InvalidTokenException, NoTweetsFoundException {
+		TweetDoc reply = new TweetDoc();
+		reply.setHandle(TEST_USER);
+		reply.setParentId("parentId");
+
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(reply));
+
+		tweetService.deleteTweetById(TEST_ID, TEST_USER, TEST_TOKEN);
+
+		// then
+		verify(tweetRepository, times(1)).delete(reply);
+		verify(tweetRepository, times(1)).incrementReplyCount("parentId", -1);
+	}
+
 	/**
 	 * method to test _deleteTweetById throws exception when no tweets exists
 	 * 
@@ -212,19 +446,18 @@ class TweetServiceTest {
 	@Test
 	void test_likeTweetByIdCallsRepo() throws InvalidTokenException, NoTweetsFoundException, InvalidUserException {
 
-		TweetDoc tweet = new TweetDoc();
-		tweet.setLikesOnTweet(1L);
-		tweet.setHandle(TEST_USER);
-		Optional<TweetDoc> tweetOp = Optional.of(tweet);
+		tweetsProperties.getLikes().setWriteBehindEnabled(false);
 
 		// when
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER_2);
-		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
+		when(tweetRepository.incrementLikes(TEST_ID, TEST_USER_2, 1)).thenReturn(TEST_USER);
 
 		tweetService.likeTweetById(TEST_ID, TEST_USER_2, TEST_TOKEN);
 
 		// then
-		verify(tweetRepository, times(1)).save(any(TweetDoc.class));
+		verify(tweetRepository, times(1)).incrementLikes(TEST_ID, TEST_USER_2, 1);
+		verify(tweetRepository, never()).save(any(TweetDoc.class));
+		verify(timelineVersions, times(1)).bump(TEST_USER);
 	}
 
 	/**
@@ -239,11 +472,12 @@ class TweetServiceTest {
 	void test_likeTweetByIdThrowsExceptionOnNoTweet()
 			throws InvalidTokenException, NoTweetsFoundException, InvalidUserException {
 
-		Optional<TweetDoc> tweetOp = Optional.empty();
+		tweetsProperties.getLikes().setWriteBehindEnabled(false);
 
 		// when
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER_2);
-		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
+		when(tweetRepository.incrementLikes(TEST_ID, TEST_USER_2, 1)).thenReturn(null);
+		when(tweetRepository.existsById(TEST_ID)).thenReturn(false);
 
 		assertThrows(NoTweetsFoundException.class, () -> tweetService.likeTweetById(TEST_ID, TEST_USER_2, TEST_TOKEN));
 	}
@@ -260,16 +494,88 @@ class TweetServiceTest {
 	void test_likeTweetByIdThrowsExceptionOnTweetUserSameAsTweet()
 			throws InvalidTokenException, NoTweetsFoundException, InvalidUserException {
 
-		TweetDoc tweet = new TweetDoc();
-		tweet.setLikesOnTweet(1L);
-		tweet.setHandle(TEST_USER);
-		Optional<TweetDoc> tweetOp = Optional.of(tweet);
+		tweetsProperties.getLikes().setWriteBehindEnabled(false);
 
 		// when
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
-		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
+		when(tweetRepository.incrementLikes(TEST_ID, TEST_USER, 1)).thenReturn(null);
+		when(tweetRepository.existsById(TEST_ID)).thenReturn(true);
+
+		assertThrows(InvalidUserException.class, () -> tweetService.likeTweetById(TEST_ID, TEST_USER, TEST_TOKEN));
+	}
+
+	/**
+	 * method to test likeTweetById hands the like to the write-behind buffer
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidUserException
+	 */
+	@Test
+	void test_likeTweetByIdBuffersLike() throws InvalidTokenException, NoTweetsFoundException, InvalidUserException {
+
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER_2);
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweetBy(TEST_USER)));
+		when(likeBuffer.add(TEST_ID, TEST_USER)).thenReturn(true);
+
+		tweetService.likeTweetById(TEST_ID, TEST_USER_2, TEST_TOKEN);
+
+		// then
+		verify(likeBuffer, times(1)).add(TEST_ID, TEST_USER);
+		verify(tweetRepository, never()).incrementLikes(any(String.class), any(String.class), anyLong());
+	}
+
+	/**
+	 * method to test likeTweetById writes the like through when the buffer is
+	 * full
+	 * 
+	 * @throws InvalidTokenException
+	 * @throws NoTweetsFoundException
+	 * @throws InvalidUserException
+	 */
+	@Test
+	void test_likeTweetByIdWritesThroughWhenBufferFull()
+			throws InvalidTokenException, NoTweetsFoundException, InvalidUserException {
+
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER_2);
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweetBy(TEST_USER)));
+		when(likeBuffer.add(TEST_ID, TEST_USER)).thenReturn(false);
+		when(tweetRepository.incrementLikes(TEST_ID, TEST_USER_2, 1)).thenReturn(TEST_USER);
+
+		tweetService.likeTweetById(TEST_ID, TEST_USER_2, TEST_TOKEN);
+
+		// then
+		verify(tweetRepository, times(1)).incrementLikes(TEST_ID, TEST_USER_2, 1);
+	}
+
+	/**
+	 * method to test buffered likes are rejected when the tweet does not exist
+	 */
+	@Test
+	void test_likeTweetByIdBufferedThrowsExceptionOnNoTweet() {
+
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER_2);
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.empty());
+
+		assertThrows(NoTweetsFoundException.class, () -> tweetService.likeTweetById(TEST_ID, TEST_USER_2, TEST_TOKEN));
+		verify(likeBuffer, never()).add(any(), any());
+	}
+
+	/**
+	 * method to test buffered likes are rejected on the user's own tweet
+	 */
+	@Test
+	void test_likeTweetByIdBufferedThrowsExceptionOnOwnTweet() {
+
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(tweetRepository.findById(TEST_ID)).thenReturn(Optional.of(tweetBy(TEST_USER)));
 
 		assertThrows(InvalidUserException.class, () -> tweetService.likeTweetById(TEST_ID, TEST_USER, TEST_TOKEN));
+		verify(likeBuffer, never()).add(any(), any());
 	}
 
 	/**
@@ -320,12 +626,12 @@ class TweetServiceTest {
 	void test_replyTweetByIdThrowsExceptionOnTweetNotPresent()
 			throws InvalidTokenException, NoTweetsFoundException, InvalidUserException {
 
-		Optional<TweetDoc> tweetOp = Optional.empty();
 		TweetDoc tweetReply = new TweetDoc();
+		tweetReply.setMessage("some tweet");
 
 		// when
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
-		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
+		when(tweetRepository.incrementReplyCount(TEST_ID, 1)).thenReturn(null);
 
 		assertThrows(NoTweetsFoundException.class,
 				() -> tweetService.replyTweetById(TEST_ID, TEST_USER, TEST_TOKEN, tweetReply));
@@ -341,17 +647,15 @@ class TweetServiceTest {
 	@Test
 	void test_replyTweetByIdThrowsExceptionOnLengthExceed() throws InvalidTokenException {
 
-		TweetDoc tweet = new TweetDoc();
-		Optional<TweetDoc> tweetOp = Optional.of(tweet);
 		TweetDoc tweetReply = new TweetDoc();
 		tweetReply.setMessage("a".repeat(145));
 
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
-		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
 
 		// then
 		assertThrows(InvalidTweetException.class,
 				() -> tweetService.replyTweetById(TEST_ID, TEST_USER, TEST_TOKEN, tweetReply));
+		verify(tweetRepository, never()).incrementReplyCount(any(String.class), anyLong());
 	}
 
 	/**
@@ -365,23 +669,22 @@ class TweetServiceTest {
 	@Test
 	void test_replyTweetByIdCallsRepo()
 			throws InvalidTokenException, NoTweetsFoundException, InvalidTweetException, InvalidUserException {
-		TweetDoc tweet = new TweetDoc();
-		tweet.setReplies(new ArrayList<>());
-
-		Optional<TweetDoc> tweetOp = Optional.of(tweet);
 		TweetDoc tweetReply = new TweetDoc();
 		tweetReply.setMessage("some tweet");
 
 		// when
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
-		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
-		when(userRepository.findByUsername(any(String.class))).thenReturn(new UserDoc());
+		when(tweetRepository.incrementReplyCount(TEST_ID, 1)).thenReturn(TEST_USER_2);
+		when(userRepository.findProfileByUsername(any(String.class))).thenReturn(new UserDoc());
 
 		tweetService.replyTweetById(TEST_ID, TEST_USER, TEST_TOKEN, tweetReply);
 
 		// then
 		verify(tweetRepository, times(1)).save(tweetReply);
-		verify(tweetRepository, times(1)).save(tweet);
+		verify(timelineVersions, times(1)).bump(TEST_USER_2);
+		assertEquals(TEST_ID, tweetReply.getParentId());
+		assertTrue(tweetReply.isReply());
+		assertNotNull(tweetReply.getCreatedAt());
 	}
 
 	/**
@@ -497,10 +800,14 @@ class TweetServiceTest {
 		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
 		when(tweetRepository.findById(TEST_ID)).thenReturn(tweetOp);
 
+		when(tweetRepository.updateMessage(TEST_ID, TEST_USER, updateTweet.getMessage())).thenReturn(1L);
+
 		tweetService.updateTweetById(TEST_ID, TEST_USER, TEST_TOKEN, updateTweet);
 
 		// then
-		verify(tweetRepository, times(1)).save(any(TweetDoc.class));
+		verify(tweetRepository, times(1)).updateMessage(TEST_ID, TEST_USER, updateTweet.getMessage());
+		verify(tweetRepository, never()).save(any(TweetDoc.class));
+		verify(tweetCache, times(1)).invalidate(TEST_ID);
 	}
 
 	/**
@@ -533,4 +840,202 @@ class TweetServiceTest {
 		// assert
 		assertThrows(InvalidTweetException.class, () -> tweetService.addTweet(tweet));
 	}
+
+	/**
+	 * method to test the export streams the user's tweets and closes the cursor
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	void test_exportTweetsByUsernameClosesCursor() throws IOException {
+		@SuppressWarnings("unchecked")
+		CloseableIterator<TweetDoc> tweets = mock(CloseableIterator.class);
+		OutputStream out = new ByteArrayOutputStream();
+
+		// when
+		when(tweetRepository.streamUserTimeline(TEST_USER, 500)).thenReturn(tweets);
+
+		tweetService.exportTweetsByUsername(TEST_USER, out);
+
+		// then
+		verify(jsonViewUtil, times(1)).writeTimeline(tweets, out, 500);
+		verify(tweets, times(1)).close();
+	}
+
+	/**
+	 * method to test addTweets resolves avatars once and inserts the batch
+	 */
+	@Test
+	void test_addTweetsInsertsBatch() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setMessage("any message");
+		tweet.setHandle(TEST_USER);
+		TweetDoc tweet2 = new TweetDoc();
+		tweet2.setMessage("another message");
+		tweet2.setHandle(TEST_USER);
+
+		UserDoc user = new UserDoc();
+		user.setUsername(TEST_USER);
+		user.setAvatarUrl("url");
+
+		// when
+		when(userRepository.findProfilesByUsernameIn(any())).thenReturn(Arrays.asList(user));
+
+		tweetService.addTweets(Arrays.asList(tweet, tweet2));
+
+		// then
+		verify(userRepository, times(1)).findProfilesByUsernameIn(any());
+		verify(tweetRepository, times(1)).insertAllUnordered(Arrays.asList(tweet, tweet2));
+		assertEquals("url", tweet2.getAvatarUrl());
+		assertNotNull(tweet.getId());
+	}
+
+	/**
+	 * method to test addTweets leaves redelivered tweets out of the timelines
+	 */
+	@Test
+	void test_addTweetsSkipsRedeliveredTweets() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("id1");
+		tweet.setMessage("any message");
+		tweet.setHandle(TEST_USER);
+		tweet.setCreatedAt(new Date());
+		TweetDoc tweet2 = new TweetDoc();
+		tweet2.setId("id2");
+		tweet2.setMessage("another message");
+		tweet2.setHandle(TEST_USER);
+		tweet2.setCreatedAt(new Date());
+
+		// when
+		when(tweetRepository.insertAllUnordered(any())).thenReturn(Collections.singleton("id1"));
+		when(followRepository.findFollowersOf(TEST_USER)).thenReturn(new ArrayList<>());
+
+		tweetService.addTweets(Arrays.asList(tweet, tweet2));
+
+		// then
+		verify(homeTimelines, times(1)).push(any(), any());
+		verify(homeTimelines, times(1)).push(Arrays.asList(TEST_USER),
+				new TimelineCursor(tweet2.getCreatedAt(), "id2"));
+	}
+
+	/**
+	 * method to test addTweets skips tweets exceeding the length limit
+	 */
+	@Test
+	void test_addTweetsSkipsInvalidTweets() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setMessage("a".repeat(145));
+
+		tweetService.addTweets(Arrays.asList(tweet));
+
+		// then
+		verify(tweetRepository, never()).insertAllUnordered(any());
+	}
+	/**
+	 * method to test addTweets pushes the tweets into the home timelines of the
+	 * followers of their author and of the author
+	 */
+	@Test
+	void test_addTweetsFansOutToFollowers() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setMessage("any message");
+		tweet.setHandle(TEST_USER);
+		tweet.setCreatedAt(new Date());
+
+		// when
+		when(userRepository.findProfilesByUsernameIn(any())).thenReturn(new ArrayList<>());
+		when(followRepository.findFollowersOf(TEST_USER))
+				.thenReturn(Arrays.asList(new FollowDoc(null, TEST_USER_2, TEST_USER, null)));
+
+		tweetService.addTweets(Arrays.asList(tweet));
+
+		// then
+		verify(homeTimelines, times(1)).push(Arrays.asList(TEST_USER_2, TEST_USER),
+				new TimelineCursor(tweet.getCreatedAt(), tweet.getId()));
+	}
+
+	/**
+	 * method to test addTweets does not fan out the tweets of heavy accounts
+	 */
+	@Test
+	void test_addTweetsSkipsFanOutOfHeavyAccounts() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setMessage("any message");
+		tweet.setHandle(TEST_USER);
+		tweet.setCreatedAt(new Date());
+
+		UserDoc user = new UserDoc();
+		user.setUsername(TEST_USER);
+		user.setFollowersCount(100000L);
+
+		// when
+		when(userRepository.findProfilesByUsernameIn(any())).thenReturn(Arrays.asList(user));
+
+		tweetService.addTweets(Arrays.asList(tweet));
+
+		// then
+		verify(followRepository, never()).findFollowersOf(any());
+	}
+
+	/**
+	 * method to test getHomeTimeline seeds a cold timeline from the followed users
+	 */
+	@Test
+	void test_getHomeTimelineSeedsColdTimeline() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("id1");
+		tweet.setCreatedAt(new Date());
+
+		// when
+		when(followRepository.findFolloweesOf(TEST_USER))
+				.thenReturn(Arrays.asList(new FollowDoc(null, TEST_USER, TEST_USER_2, null)));
+		when(tweetRepository.findByHandles(any(), isNull(), eq(800))).thenReturn(Arrays.asList(tweet));
+		when(tweetRepository.findAllById(any())).thenReturn(Arrays.asList(tweet));
+		when(homeTimelines.get(eq(TEST_USER), any())).thenAnswer(
+				invocation -> invocation.<Function<String, HomeTimeline>>getArgument(1).apply(TEST_USER));
+
+		TweetPage page = tweetService.getHomeTimeline(TEST_USER, null, null);
+
+		// then
+		verify(homeTimelines, times(1)).startSeeding(eq(TEST_USER), any(HomeTimeline.class));
+		assertEquals(Arrays.asList(tweet), page.getTweets());
+		assertNull(page.getNextCursor());
+	}
+
+	/**
+	 * method to test getHomeTimeline pages through a cached timeline and merges in
+	 * the tweets of heavy accounts
+	 */
+	@Test
+	void test_getHomeTimelineMergesHeavyAccounts() {
+		Date now = new Date();
+		TweetDoc pushed = new TweetDoc();
+		pushed.setId("id1");
+		pushed.setCreatedAt(new Date(now.getTime() - 1000));
+		TweetDoc heavy = new TweetDoc();
+		heavy.setId("id2");
+		heavy.setCreatedAt(now);
+
+		HomeTimeline timeline = new HomeTimeline(800, Collections.singleton(TEST_USER_2));
+		timeline.add(new TimelineCursor(pushed.getCreatedAt(), pushed.getId()));
+
+		// when
+		when(homeTimelines.get(eq(TEST_USER), any())).thenReturn(timeline);
+		when(tweetRepository.findByHandles(Collections.singleton(TEST_USER_2), null, 2))
+				.thenReturn(Arrays.asList(heavy));
+
+		TweetPage page = tweetService.getHomeTimeline(TEST_USER, null, 1);
+
+		// then
+		assertEquals(Arrays.asList(heavy), page.getTweets());
+		assertEquals(new TimelineCursor(heavy.getCreatedAt(), heavy.getId()), page.getNextCursor());
+		verify(tweetRepository, never()).findAllById(any());
+	}
+
+	private TweetDoc tweetBy(String handle) {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId(TEST_ID);
+		tweet.setHandle(handle);
+		return tweet;
+	}
 }
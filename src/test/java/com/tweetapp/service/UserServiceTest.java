@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,21 +19,34 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.tweetapp.cache.HomeTimelineCache;
+import com.tweetapp.cache.UserProfileCache;
+import com.tweetapp.cache.UsernameIndex;
+import com.tweetapp.config.TweetsProperties;
 import com.tweetapp.constants.TweetConstants;
+import com.tweetapp.document.FollowDoc;
 import com.tweetapp.document.UserDoc;
 import com.tweetapp.exception.InvalidTokenException;
 import com.tweetapp.exception.InvalidUserException;
 import com.tweetapp.exception.NoUsersFoundException;
 import com.tweetapp.model.UserToken;
+import com.tweetapp.repository.IFollowRepository;
 import com.tweetapp.repository.IUserRepository;
 import com.tweetapp.service.impl.UserServiceImpl;
 import com.tweetapp.util.JwtUtil;
 import com.tweetapp.util.TweetUtil;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
 
@@ -49,6 +65,21 @@ class UserServiceTest {
 	@Mock
 	private PasswordEncoder passwordEncoder;
 
+	@Spy
+	private TweetsProperties tweetsProperties;
+
+	@Mock
+	private UsernameIndex usernameIndex;
+
+	@Mock
+	private IFollowRepository followRepo;
+
+	@Mock
+	private HomeTimelineCache homeTimelines;
+
+	@Spy
+	private UserProfileCache userProfiles = new UserProfileCache();
+
 	private UserDoc testUser;
 
 	private static final String TEST_USER = "testUser";
@@ -59,6 +90,12 @@ class UserServiceTest {
 
 	@BeforeEach
 	public void setup() {
+		// a real cache in front of the mocked repository
+		ReflectionTestUtils.setField(userProfiles, "userRepository", userRepo);
+		ReflectionTestUtils.setField(userProfiles, "tweetsProperties", tweetsProperties);
+		ReflectionTestUtils.setField(userProfiles, "meterRegistry", new SimpleMeterRegistry());
+		userProfiles.initUsers();
+
 		testUser = new UserDoc();
 		testUser.setUsername(TEST_USER);
 		testUser.setPassword(TEST_PASS);
@@ -118,6 +155,23 @@ class UserServiceTest {
 		verify(userRepo, times(1)).save(testUser);
 	}
 
+	/**
+	 * test method registerUser drops a cached profile of the username
+	 * 
+	 * @throws InvalidUserException
+	 */
+	@Test
+	void test_registerUserInvalidatesProfile() throws InvalidUserException {
+		// when
+		when(tweetUtil.validateUserDetails(testUser)).thenReturn(true);
+		when(passwordEncoder.encode(TEST_PASS)).thenReturn(TEST_PASS);
+
+		userService.registerUser(testUser);
+
+		// then
+		verify(userProfiles, times(1)).invalidate(TEST_USER);
+	}
+
 	/**
 	 * test method registerUser to throw exception on invalid user details
 	 * 
@@ -204,18 +258,22 @@ class UserServiceTest {
 	}
 
 	/**
-	 * test method getUsersByUsername calls repository
+	 * test method getUsersByUsername runs a lower cased prefix range query
 	 * @throws NoUsersFoundException
 	 */
 	@Test
 	void test_getUsersByUsername() throws NoUsersFoundException {
+		String from = TEST_USER.toLowerCase();
+		PageRequest page = PageRequest.of(0, 20, Sort.by("usernameLower"));
+
 		// when
-		when(userRepo.findByUsernameLike("*" + TEST_USER + "*")).thenReturn(Arrays.asList(new UserDoc()));
+		when(userRepo.findByUsernameRange(from, from + Character.MAX_VALUE, page))
+				.thenReturn(Arrays.asList(new UserDoc()));
 
 		userService.getUsersByUsername(TEST_USER);
 
 		// then
-		verify(userRepo, times(1)).findByUsernameLike("*" + TEST_USER + "*");
+		verify(userRepo, times(1)).findByUsernameRange(from, from + Character.MAX_VALUE, page);
 
 	}
 
@@ -226,11 +284,157 @@ class UserServiceTest {
 	@Test
 	void test_getUsersByUsernameThrowsException() throws NoUsersFoundException {
 		// when
-		when(userRepo.findByUsernameLike("*" + TEST_USER + "*")).thenReturn(new ArrayList<>());
+		when(userRepo.findByUsernameRange(anyString(), anyString(), any(PageRequest.class)))
+				.thenReturn(new ArrayList<>());
 
 		// then
 		assertThrows(NoUsersFoundException.class, () -> userService.getUsersByUsername(TEST_USER));
 
 	}
 
+	/**
+	 * test method getUsersByUsername answers from the in-memory index when enabled
+	 * @throws NoUsersFoundException
+	 */
+	@Test
+	void test_getUsersByUsernameUsesIndex() throws NoUsersFoundException {
+		tweetsProperties.getSearch().setInMemoryIndex(true);
+
+		// when
+		when(usernameIndex.search(eq(TEST_USER), eq(20))).thenReturn(Arrays.asList(testUser));
+
+		assertEquals(1, userService.getUsersByUsername(TEST_USER).size());
+
+		// then
+		verify(userRepo, times(0)).findByUsernameRange(anyString(), anyString(), any(PageRequest.class));
+	}
+
+	/**
+	 * test method registerUser adds the user to the in-memory index when enabled
+	 * @throws InvalidUserException
+	 */
+	@Test
+	void test_registerUserUpdatesIndex() throws InvalidUserException {
+		tweetsProperties.getSearch().setInMemoryIndex(true);
+
+		// when
+		when(tweetUtil.validateUserDetails(testUser)).thenReturn(true);
+		when(passwordEncoder.encode(TEST_PASS)).thenReturn(TEST_PASS);
+
+		userService.registerUser(testUser);
+
+		// then
+		verify(usernameIndex, times(1)).add(testUser);
+	}
+
+	/**
+	 * test method followUser stores the edge and updates the counts
+	 * @throws Exception
+	 */
+	@Test
+	void test_followUserCallsRepo() throws Exception {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(userRepo.findProfileByUsername(TEST_USER_2)).thenReturn(new UserDoc());
+
+		userService.followUser(TEST_USER, TEST_USER_2, TEST_TOKEN);
+
+		// then
+		verify(followRepo, times(1)).insert(any(FollowDoc.class));
+		verify(userRepo, times(1)).incrementFollowCounts(TEST_USER, TEST_USER_2, 1);
+		verify(homeTimelines, times(1)).invalidate(TEST_USER);
+	}
+
+	/**
+	 * test method followUser drops the cached profiles whose counts it changed
+	 * @throws Exception
+	 */
+	@Test
+	void test_followUserInvalidatesProfiles() throws Exception {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(userRepo.findProfileByUsername(TEST_USER_2)).thenReturn(new UserDoc());
+
+		userService.followUser(TEST_USER, TEST_USER_2, TEST_TOKEN);
+		userProfiles.get(TEST_USER_2);
+
+		// then
+		verify(userRepo, times(2)).findProfileByUsername(TEST_USER_2);
+		verify(userProfiles, times(1)).invalidate(TEST_USER);
+	}
+
+	/**
+	 * test method followUser leaves the counts alone when already following
+	 * @throws Exception
+	 */
+	@Test
+	void test_followUserTwiceKeepsCounts() throws Exception {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(userRepo.findProfileByUsername(TEST_USER_2)).thenReturn(new UserDoc());
+		when(followRepo.insert(any(FollowDoc.class))).thenThrow(new DuplicateKeyException("dupe"));
+
+		userService.followUser(TEST_USER, TEST_USER_2, TEST_TOKEN);
+
+		// then
+		verify(userRepo, never()).incrementFollowCounts(TEST_USER, TEST_USER_2, 1);
+	}
+
+	/**
+	 * test method followUser throws exception when following oneself
+	 */
+	@Test
+	void test_followUserThrowsExceptionOnSelf() {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+
+		// then
+		InvalidUserException exception = assertThrows(InvalidUserException.class,
+				() -> userService.followUser(TEST_USER, TEST_USER, TEST_TOKEN));
+		assertEquals(TweetConstants.USER_NOT_FOLLOW_MSG, exception.getMessage());
+	}
+
+	/**
+	 * test method followUser throws exception when the followee does not exist
+	 */
+	@Test
+	void test_followUserThrowsExceptionOnNoUser() {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(userRepo.findProfileByUsername(TEST_USER_2)).thenReturn(null);
+
+		// then
+		assertThrows(NoUsersFoundException.class, () -> userService.followUser(TEST_USER, TEST_USER_2, TEST_TOKEN));
+	}
+
+	/**
+	 * test method unfollowUser removes the edge and updates the counts
+	 * @throws InvalidTokenException
+	 */
+	@Test
+	void test_unfollowUserCallsRepo() throws InvalidTokenException {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER);
+		when(followRepo.deleteByFollowerAndFollowee(TEST_USER, TEST_USER_2)).thenReturn(1L);
+
+		userService.unfollowUser(TEST_USER, TEST_USER_2, TEST_TOKEN);
+
+		// then
+		verify(userRepo, times(1)).incrementFollowCounts(TEST_USER, TEST_USER_2, -1);
+		verify(homeTimelines, times(1)).invalidate(TEST_USER);
+	}
+
+	/**
+	 * test method unfollowUser throws exception on a token of another user
+	 * @throws InvalidTokenException
+	 */
+	@Test
+	void test_unfollowUserThrowsExceptionOnInvalidUser() throws InvalidTokenException {
+		// when
+		when(jwtUtil.extractUsername(TEST_TOKEN)).thenReturn(TEST_USER_2);
+
+		// then
+		assertThrows(BadCredentialsException.class, () -> userService.unfollowUser(TEST_USER, TEST_USER_2, TEST_TOKEN));
+	}
+
 }
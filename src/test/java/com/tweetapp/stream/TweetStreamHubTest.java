@@ -0,0 +1,150 @@
+package com.tweetapp.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.TweetDoc;
+import com.tweetapp.util.JsonViewUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for the live tweet stream and its per connection buffers
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class TweetStreamHubTest {
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private JsonViewUtil jsonViewUtil = new JsonViewUtil();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Spy
+	private SyncTaskExecutor streamExecutor = new SyncTaskExecutor();
+
+	@InjectMocks
+	private TweetStreamHub tweetStream;
+
+	@BeforeEach
+	void setup() {
+		ReflectionTestUtils.setField(jsonViewUtil, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+		jsonViewUtil.initViews();
+		tweetStream.registerMetrics();
+		tweetStream.initRecentIds();
+	}
+
+	/**
+	 * method to test a full buffer drops its oldest tweet
+	 */
+	@Test
+	void test_offerDropsOldestWhenFull() throws IOException {
+		RecordingEmitter emitter = new RecordingEmitter();
+		TweetSubscriber subscriber = new TweetSubscriber(emitter, 2);
+
+		assertTrue(subscriber.offer(new StreamedTweet("1", "{}")));
+		assertFalse(subscriber.offer(new StreamedTweet("2", "{}")));
+		assertFalse(subscriber.offer(new StreamedTweet("3", "{}")));
+
+		assertEquals(2, subscriber.size());
+		assertEquals(1, subscriber.getDropped());
+
+		subscriber.drain();
+
+		assertEquals(2, emitter.sent.size());
+		assertTrue(subscriber.isEmpty());
+
+		// the drain is released, the next tweet schedules a new one
+		assertTrue(subscriber.offer(new StreamedTweet("4", "{}")));
+	}
+
+	/**
+	 * method to test published tweets reach the connection and replies are left
+	 * out
+	 */
+	@Test
+	void test_publishSkipsReplies() {
+		tweetStream.subscribe();
+
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("62efd6a2c1b4a3263a5f3e6f");
+		tweet.setMessage("any message");
+		TweetDoc reply = new TweetDoc();
+		reply.setId("62efd6a2c1b4a3263a5f3e70");
+		reply.setReply(true);
+
+		tweetStream.publish(Arrays.asList(tweet, reply));
+
+		assertEquals(1, tweetStream.getSubscriberCount());
+		assertEquals(1.0, meterRegistry.get("tweets.stream.published").counter().count());
+	}
+
+	/**
+	 * method to test a redelivered tweet is streamed once
+	 */
+	@Test
+	void test_publishSkipsRedeliveredTweets() {
+		tweetStream.subscribe();
+
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("62efd6a2c1b4a3263a5f3e6f");
+		tweet.setMessage("any message");
+
+		tweetStream.publish(Arrays.asList(tweet));
+		tweetStream.publish(Arrays.asList(tweet));
+
+		assertEquals(1.0, meterRegistry.get("tweets.stream.published").counter().count());
+	}
+
+	/**
+	 * method to test nothing is rendered without connections
+	 */
+	@Test
+	void test_publishWithoutSubscribers() {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setMessage("any message");
+
+		tweetStream.publish(Arrays.asList(tweet));
+
+		assertEquals(0.0, meterRegistry.get("tweets.stream.published").counter().count());
+	}
+
+	/**
+	 * emitter recording what is sent instead of writing to a response
+	 */
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final List<Set<?>> sent = new ArrayList<>();
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			sent.add(builder.build());
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.tweetapp.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.document.TweetDoc;
+
+@ExtendWith(MockitoExtension.class)
+class JsonViewUtilTest {
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@InjectMocks
+	private JsonViewUtil jsonViewUtil;
+
+	@BeforeEach
+	void setup() {
+		jsonViewUtil.initViews();
+	}
+
+	@Test
+	void test_tweetEventRoundTrip() throws JsonProcessingException {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("123");
+		tweet.setMessage("this is a dummy message");
+		tweet.setHandle("username");
+		tweet.setCreatedAt(new Date());
+		tweet.setReply(true);
+
+		String event = jsonViewUtil.getTweetEventWriter().writeValueAsString(tweet);
+		TweetDoc result = jsonViewUtil.getTweetEventReader().readValue(event);
+
+		// the id travels with the event so redeliveries can be dropped
+		assertEquals("123", result.getId());
+		assertEquals(tweet.getMessage(), result.getMessage());
+		assertEquals(tweet.getCreatedAt(), result.getCreatedAt());
+		assertTrue(result.isReply());
+	}
+
+	@Test
+	void test_timelineWriterFiltersFields() throws JsonProcessingException {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("123");
+		tweet.setReply(true);
+
+		String json = jsonViewUtil.getTimelineWriter().writeValueAsString(tweet);
+
+		assertTrue(json.contains("\"id\":\"123\""));
+		assertTrue(json.contains("\"replyCount\":"));
+		assertFalse(json.contains("\"reply\":"));
+		assertFalse(json.contains("\"replies\":"));
+	}
+
+	@Test
+	void test_writeTimelineStreamsArray() throws IOException {
+		TweetDoc tweet = new TweetDoc();
+		tweet.setId("123");
+		tweet.setMessage("first");
+		TweetDoc tweet2 = new TweetDoc();
+		tweet2.setId("456");
+		tweet2.setMessage("second");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		jsonViewUtil.writeTimeline(Arrays.asList(tweet, tweet2).iterator(), out, 1);
+
+		// read as a tree, the fixtures leave @NonNull fields of TweetDoc unset
+		JsonNode result = objectMapper.readTree(out.toByteArray());
+		assertTrue(result.isArray());
+		assertEquals(2, result.size());
+		assertEquals("second", result.get(1).get("message").asText());
+	}
+
+	@Test
+	void test_writeTimelineWritesEmptyArray() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		jsonViewUtil.writeTimeline(Collections.emptyIterator(), out, 500);
+
+		assertEquals("[]", out.toString());
+	}
+}
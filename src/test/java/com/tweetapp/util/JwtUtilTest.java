@@ -0,0 +1,106 @@
+package com.tweetapp.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.tweetapp.config.TweetsProperties;
+import com.tweetapp.document.UserDoc;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * junits for jwt token handling
+ * 
+ * @author prateekpurohit
+ *
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtUtilTest {
+
+	@Spy
+	private TweetsProperties tweetsProperties = new TweetsProperties();
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private JwtUtil jwtUtil;
+
+	private static final String TEST_USER = "testUser";
+
+	@BeforeEach
+	void setup() {
+		jwtUtil.initClaimsCache();
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void test_extractUsername() {
+		String token = bearer(TEST_USER);
+
+		assertTrue(jwtUtil.isValidToken(token));
+		assertEquals(TEST_USER, jwtUtil.extractUsername(token));
+	}
+
+	@Test
+	void test_parseClaimsReusesVerifiedClaims() {
+		String token = bearer(TEST_USER);
+
+		// then
+		assertSame(jwtUtil.parseClaims(token), jwtUtil.parseClaims(token));
+	}
+
+	@Test
+	void test_parseClaimsReusesRequestClaims() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		String token = bearer(TEST_USER);
+
+		// then
+		assertSame(jwtUtil.parseClaims(token), jwtUtil.parseClaims(token));
+	}
+
+	@Test
+	void test_parseClaimsTimesSignatureChecksOnly() {
+		String token = bearer(TEST_USER);
+
+		jwtUtil.parseClaims(token);
+		jwtUtil.parseClaims(token);
+
+		// then
+		assertEquals(1, meterRegistry.get("tweets.jwt.parse").timer().count());
+	}
+
+	@Test
+	void test_parseClaimsThrowsExceptionOnTamperedToken() {
+		String token = bearer(TEST_USER);
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		// then
+		assertThrows(JwtException.class, () -> jwtUtil.parseClaims(tampered));
+	}
+
+	private String bearer(String username) {
+		UserDoc user = new UserDoc();
+		user.setUsername(username);
+		return "Bearer " + jwtUtil.createToken(user).getAuthToken();
+	}
+}
@@ -18,7 +18,9 @@ import org.springframework.http.converter.json.MappingJacksonValue;
 import com.tweetapp.constants.TweetConstants;
 import com.tweetapp.document.TweetDoc;
 import com.tweetapp.document.UserDoc;
+import com.tweetapp.exception.InvalidCursorException;
 import com.tweetapp.exception.InvalidUserException;
+import com.tweetapp.model.TimelineCursor;
 
 @ExtendWith(MockitoExtension.class)
 class TweetUtilTest {
@@ -72,7 +74,7 @@ class TweetUtilTest {
 		tweet.setId("123");
 		tweet.setLikesOnTweet(1L);
 		tweet.setMessage("this is a dummy message");
-		tweet.setReplies(Arrays.asList(new TweetDoc()));
+		tweet.setReplyCount(1L);
 		tweet.setReply(true);
 		
 		MappingJacksonValue result = tweetUtil.filterTweetData(Arrays.asList(tweet));
@@ -91,4 +93,18 @@ class TweetUtilTest {
 		assertNotNull(result);
 	}
 
+	@Test
+	void test_encodeDecodeCursor() throws InvalidCursorException {
+		TimelineCursor cursor = new TimelineCursor(new Date(), "62efd6a2c1b4a3263a5f3e6f");
+
+		TimelineCursor result = tweetUtil.decodeCursor(tweetUtil.encodeCursor(cursor));
+		assertEquals(cursor, result);
+	}
+
+	@Test
+	void test_decodeCursorThrowsExceptionOnInvalidToken() {
+		Exception exception = assertThrows(InvalidCursorException.class, () -> tweetUtil.decodeCursor("not-a-cursor"));
+		assertEquals(TweetConstants.INVALID_CURSOR_MSG, exception.getMessage());
+	}
+
 }